@@ -0,0 +1,33 @@
+package marcono1234.serialization.serialbuilder;
+
+import java.io.Serial;
+
+/**
+ * Thrown when writing serialization data would exceed the configured maximum data size. The exception is thrown
+ * before the data exceeding the limit is written; however, data written before that might already have been
+ * passed on, for example to a stream.
+ *
+ * @see SerialBuilderOptions#withMaxSize(long)
+ */
+public class DataSizeLimitExceededException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long maxSize;
+
+    /**
+     * @param maxSize
+     *      the maximum data size which would have been exceeded
+     */
+    public DataSizeLimitExceededException(long maxSize) {
+        super("Serialization data exceeds maximum size of " + maxSize + " bytes");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the maximum data size which would have been exceeded.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,69 @@
+package marcono1234.serialization.serialbuilder;
+
+import marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer;
+import marcono1234.serialization.serialbuilder.simplebuilder.implementation.SimpleBuilderContext;
+
+import java.util.Objects;
+
+/**
+ * Context which is reused for multiple builds to avoid the setup cost of every build, such as allocating
+ * the builder state and the output buffer. Buffers which have grown during a build are kept for the next build,
+ * unless they have become very large. This is mainly useful when building a large number of small objects.
+ *
+ * <p>A context can only be used by one build at a time. A build using the context ends when the builder
+ * method returning the serialization data is called, or when the writer passed to
+ * {@link SerialBuilder#writeSerializationDataWith(SerialBuilderContext, ThrowingConsumer)} returns or throws
+ * an exception. If a build is abandoned before it ends, for example because an exception occurred while
+ * building an object, {@link #reset()} has to be called before the context can be used again.
+ *
+ * <p>All builds using a context apply the {@linkplain SerialBuilderOptions options} the context was created with,
+ * including the size limit and the data listener.
+ *
+ * <p>Instances are not thread-safe. To build on multiple threads, use a separate context per thread, for example
+ * by storing the contexts in a {@link ThreadLocal}.
+ *
+ * <h2>Example usage</h2>
+ * <pre>{@code
+ * SerialBuilderContext context = new SerialBuilderContext();
+ * for (...) {
+ *     byte[] serialData = SimpleSerialBuilder.startSerializableObject(context)
+ *         ...
+ *         .endObject();
+ * }
+ * }</pre>
+ */
+public final class SerialBuilderContext {
+    final SimpleBuilderContext builderContext;
+
+    /**
+     * Creates a new context using the {@linkplain SerialBuilderOptions#defaults() default options}. No builder
+     * state is allocated until the context is used for the first time.
+     */
+    public SerialBuilderContext() {
+        this(SerialBuilderOptions.defaults());
+    }
+
+    /**
+     * Creates a new context whose builds apply the given options. No builder state is allocated until the
+     * context is used for the first time.
+     *
+     * <p>Since a {@linkplain SerialBuilderOptions#withDataListener data listener} is stateful, the listener is
+     * called by all builds using the context, in the order of the builds.
+     *
+     * @param options
+     *      options of all builds using this context
+     */
+    public SerialBuilderContext(SerialBuilderOptions options) {
+        Objects.requireNonNull(options);
+        // Always create the context of the simple builder; which builder API uses the context is not known yet
+        builderContext = new SimpleBuilderContext(options.builderOptions);
+    }
+
+    /**
+     * Discards the build which is currently using this context, if any, so that the context can be used for
+     * a new build. Builder objects obtained during the discarded build must not be used anymore.
+     */
+    public void reset() {
+        builderContext.reset();
+    }
+}
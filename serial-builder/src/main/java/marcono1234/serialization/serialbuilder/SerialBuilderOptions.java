@@ -0,0 +1,127 @@
+package marcono1234.serialization.serialbuilder;
+
+import marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer;
+import marcono1234.serialization.serialbuilder.builder.implementation.BuilderOptions;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Options for writing serialization data with an {@code ObjectBuildingDataOutput}, for example using
+ * {@link SerialBuilder#writeSerializationDataWith(SerialBuilderOptions, ThrowingConsumer)}, and for builds
+ * using a {@link SerialBuilderContext} created with {@link SerialBuilderContext#SerialBuilderContext(SerialBuilderOptions)}.
+ * The options apply the same way regardless of where the data is written to.
+ *
+ * <p>Instances are immutable; the {@code with...} methods return a new instance with the changed option.
+ * Therefore instances can be shared and reused for multiple builds, also by multiple threads.
+ *
+ * <h2>Example usage</h2>
+ * <pre>{@code
+ * SerialBuilderOptions options = SerialBuilderOptions.defaults()
+ *     .withMaxSize(1024 * 1024);
+ * byte[] serialData = SerialBuilder.writeSerializationDataWith(options, writer -> ...);
+ * }</pre>
+ */
+public final class SerialBuilderOptions {
+    private static final SerialBuilderOptions DEFAULT = new SerialBuilderOptions(BuilderOptions.DEFAULT);
+
+    final BuilderOptions builderOptions;
+
+    private SerialBuilderOptions(BuilderOptions builderOptions) {
+        this.builderOptions = builderOptions;
+    }
+
+    /**
+     * Returns the default options, which are used by the methods without options parameter.
+     */
+    public static SerialBuilderOptions defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns options which limit the size of the serialization data. The default is no limit.
+     *
+     * <p>The size is checked while the data is written, and a {@link DataSizeLimitExceededException} is thrown
+     * as soon as a write would exceed the limit, before any of its data is buffered. This allows safely writing
+     * data whose size is not known in advance, for example because it depends on user input, without running
+     * out of memory. The limit includes the serialization stream header. Data which has already been written
+     * to the destination before the limit was exceeded, for example to an {@link java.io.OutputStream}, is not
+     * removed, so the destination contains incomplete data in that case.
+     *
+     * @param maxSize
+     *      maximum size of the serialization data in bytes
+     * @return options with the size limit
+     * @throws IllegalArgumentException
+     *      if {@code maxSize} is negative
+     */
+    public SerialBuilderOptions withMaxSize(long maxSize) {
+        return new SerialBuilderOptions(builderOptions.withMaxSize(maxSize));
+    }
+
+    /**
+     * Returns options which set whether incorrect usage of {@code ObjectBuildingDataOutput} is detected.
+     * The default is {@code true}.
+     *
+     * <p>By default every method call on an {@code ObjectBuildingDataOutput} verifies that the output is the
+     * currently active one and that no builder call is incomplete, and the end of a writer verifies that all
+     * builder calls have been completed. Disabling these checks removes their overhead, which can matter for
+     * writers performing a large number of small writes. However, incorrect usage is then not reported and can
+     * produce malformed serialization data. The checks should therefore only be disabled for code whose builder
+     * usage is known to be correct, for example because it has been tested with the checks enabled.
+     *
+     * @param checkUsage
+     *      whether incorrect usage is detected
+     * @return options with the changed setting
+     */
+    public SerialBuilderOptions withCheckUsage(boolean checkUsage) {
+        return new SerialBuilderOptions(builderOptions.withCheckUsage(checkUsage));
+    }
+
+    /**
+     * Returns options which set whether arrays passed to builder methods are trusted to not be modified until
+     * the build using them has finished. The default is {@code false}.
+     *
+     * <p>This only affects {@link SimpleSerialBuilder}, which has to defer writing arrays which are nested inside
+     * other objects, for example array field values, until the enclosing object is complete. By default such
+     * arrays are copied when they are passed to the builder, so that later modifications do not affect the
+     * written data. Arrays which are trusted are not copied, which avoids the overhead of copying large arrays.
+     * Arrays which can be written immediately, as well as all arrays passed to {@link SerialBuilder}, are never
+     * copied.
+     *
+     * @param trustArrays
+     *      whether arrays are trusted to not be modified
+     * @return options with the changed setting
+     */
+    public SerialBuilderOptions withTrustArrays(boolean trustArrays) {
+        return new SerialBuilderOptions(builderOptions.withTrustArrays(trustArrays));
+    }
+
+    /**
+     * Returns options with a listener which is called with the serialization data while it is written.
+     * The default is no listener.
+     *
+     * <p>The listener is called with the final data, in order, as read-only buffers which are only valid during the
+     * call. This allows for example computing a digest or checksum without an additional pass over the data:
+     * <pre>{@code
+     * MessageDigest digest = MessageDigest.getInstance("SHA-256");
+     * SerialBuilderOptions options = SerialBuilderOptions.defaults().withDataListener(digest::update);
+     * byte[] data = SerialBuilder.writeSerializationDataWith(options, writer -> ...);
+     * byte[] hash = digest.digest();
+     * }</pre>
+     * The listener may consume the buffer; to update multiple objects, use {@link ByteBuffer#duplicate()} for
+     * all except the last one.
+     *
+     * <p>The listener does not affect how data is written to the destination, but for destinations which support
+     * overwriting data, such as files, data which might still change is additionally kept in memory until it is
+     * final. Since the listener is stateful, options with a listener should normally not be reused.
+     *
+     * @param dataListener
+     *      called with the serialization data
+     * @return options with the listener
+     */
+    public SerialBuilderOptions withDataListener(Consumer<? super ByteBuffer> dataListener) {
+        Objects.requireNonNull(dataListener);
+        return new SerialBuilderOptions(builderOptions.withDataListener(dataListener));
+    }
+}
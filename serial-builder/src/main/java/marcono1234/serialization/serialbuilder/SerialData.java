@@ -0,0 +1,51 @@
+package marcono1234.serialization.serialbuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+/**
+ * Serialization data which is stored in multiple segments in memory. In contrast to a {@code byte[]} the
+ * size of the data is not limited to about 2 GB, and growing the data does not require copying all of it.
+ *
+ * <p>Instances are immutable and can be read multiple times.
+ *
+ * @see SerialBuilder#writeSegmentedSerializationDataWith(marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer)
+ * @see SimpleSerialBuilder#writeSegmentedSerializationDataWith(marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer)
+ */
+public interface SerialData {
+    /**
+     * Returns the total size of the data in bytes.
+     */
+    long size();
+
+    /**
+     * Returns the segments of the data as read-only buffers, in order. Each call returns new buffer
+     * instances, so modifying the position or limit of the buffers does not affect other callers.
+     */
+    List<ByteBuffer> asByteBuffers();
+
+    /**
+     * Returns a new channel for reading the data from the start.
+     */
+    ReadableByteChannel newChannel();
+
+    /**
+     * Writes all data to the given channel using gathering writes, for example to a
+     * {@link java.nio.channels.FileChannel}. The channel must be in blocking mode. Exceptions thrown
+     * by the channel are wrapped in an {@link java.io.UncheckedIOException}.
+     *
+     * @param channel
+     *      channel to write the data to
+     */
+    void writeTo(GatheringByteChannel channel);
+
+    /**
+     * Copies the data to a {@code byte[]}.
+     *
+     * @throws IllegalStateException
+     *      if the data is too large for a {@code byte[]}
+     */
+    byte[] toByteArray();
+}
@@ -0,0 +1,201 @@
+package marcono1234.serialization.serialbuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Provides compression for serialization data, using the DEFLATE algorithm in ZLIB format with a preset dictionary.
+ * The dictionary consists of the class descriptors of common JDK classes, such as {@link Integer} and {@link HashMap},
+ * which make up a large part of typical serialization data. This considerably improves compression of small data,
+ * for which compression without a dictionary is rather ineffective.
+ *
+ * <p>Data compressed by the methods of this class can only be decompressed by the methods of this class, or by
+ * other ZLIB implementations which are provided the same dictionary.
+ *
+ * <h2>Example usage</h2>
+ * <pre>{@code
+ * ByteArrayOutputStream out = new ByteArrayOutputStream();
+ * try (OutputStream compressingOut = SerialDataCompression.newCompressingOutputStream(out)) {
+ *     SerialBuilder.writeSerializationDataWith(compressingOut, writer -> ...);
+ * }
+ * byte[] compressed = out.toByteArray();
+ *
+ * ObjectInputStream objIn = new ObjectInputStream(
+ *     SerialDataCompression.newDecompressingInputStream(new ByteArrayInputStream(compressed))
+ * );
+ * }</pre>
+ */
+public final class SerialDataCompression {
+    private SerialDataCompression() {
+    }
+
+    /**
+     * Name of the resource containing the dictionary.
+     *
+     * <p>The dictionary is serialization data consisting of the class descriptors of (in this order) {@code BigDecimal},
+     * {@code BigInteger}, {@code Date}, {@code TreeMap}, {@code LinkedHashSet}, {@code HashSet}, {@code LinkedHashMap},
+     * {@code Enum}, {@code Object[]}, {@code String[]}, {@code byte[]}, {@code int[]}, {@code long[]}, {@code Byte},
+     * {@code Short}, {@code Character}, {@code Float}, {@code Double}, {@code Boolean}, {@code Long}, {@code ArrayList},
+     * {@code HashMap} and {@code Integer}, each written by an {@code ObjectOutputStream} followed by a reset. Descriptors
+     * which are expected to be most common are at the end, because DEFLATE encodes matches with a small distance
+     * more efficiently.
+     *
+     * <p>The dictionary is stored as resource instead of being created at runtime so that it does not depend on the
+     * descriptors of the JDK the library is running on. <b>Important:</b> Changing the dictionary makes previously
+     * compressed data unreadable.
+     */
+    private static final String DICTIONARY_RESOURCE = "compression-dictionary.bin";
+
+    private static class DictionaryHolder {
+        static final byte[] DICTIONARY = loadDictionary();
+        static final long DICTIONARY_ADLER = adler32(DICTIONARY);
+
+        private static byte[] loadDictionary() {
+            try (InputStream in = SerialDataCompression.class.getResourceAsStream(DICTIONARY_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing dictionary resource " + DICTIONARY_RESOURCE);
+                }
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed loading dictionary", e);
+            }
+        }
+
+        private static long adler32(byte[] data) {
+            Adler32 adler32 = new Adler32();
+            adler32.update(data);
+            return adler32.getValue();
+        }
+    }
+
+    /**
+     * Creates a stream which compresses all data written to it, and writes the compressed data to the given stream.
+     * The returned stream must be closed to write all remaining compressed data; this also closes the given stream.
+     *
+     * @param out
+     *      stream to write the compressed data to
+     * @return stream compressing the data written to it
+     */
+    public static OutputStream newCompressingOutputStream(OutputStream out) {
+        Objects.requireNonNull(out);
+        Deflater deflater = new Deflater();
+        deflater.setDictionary(DictionaryHolder.DICTIONARY);
+
+        return new DeflaterOutputStream(out, deflater) {
+            private boolean isClosed = false;
+
+            @Override
+            public void close() throws IOException {
+                if (isClosed) {
+                    return;
+                }
+                isClosed = true;
+                try {
+                    super.close();
+                } finally {
+                    // Custom Deflater is not ended by DeflaterOutputStream
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a stream which decompresses the data read from the given stream. The data must have been compressed
+     * by {@link #newCompressingOutputStream(OutputStream)} or {@link #compress(byte[])}. Closing the returned stream
+     * also closes the given stream.
+     *
+     * <p>If the data was compressed with a different dictionary, reading throws a {@link ZipException}.
+     *
+     * @param in
+     *      stream providing the compressed data
+     * @return stream providing the decompressed data
+     */
+    public static InputStream newDecompressingInputStream(InputStream in) {
+        Objects.requireNonNull(in);
+        Inflater inflater = new Inflater();
+
+        return new InflaterInputStream(in, inflater) {
+            private boolean isClosed = false;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int readCount = super.read(b, off, len);
+                // InflaterInputStream reports end of data when a dictionary is needed; provide it and retry
+                if (readCount == -1 && inflater.needsDictionary()) {
+                    if (inflater.getAdler() != DictionaryHolder.DICTIONARY_ADLER) {
+                        throw new ZipException("Data was compressed with an unknown dictionary");
+                    }
+                    inflater.setDictionary(DictionaryHolder.DICTIONARY);
+                    readCount = super.read(b, off, len);
+                }
+                return readCount;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (isClosed) {
+                    return;
+                }
+                isClosed = true;
+                try {
+                    super.close();
+                } finally {
+                    // Custom Inflater is not ended by InflaterInputStream
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Compresses the given serialization data.
+     *
+     * @param data
+     *      serialization data to compress
+     * @return the compressed data
+     * @see #newCompressingOutputStream(OutputStream)
+     */
+    public static byte[] compress(byte[] data) {
+        Objects.requireNonNull(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressingOut = newCompressingOutputStream(out)) {
+            compressingOut.write(data);
+        } catch (IOException e) {
+            // Should not happen for ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompresses data compressed by {@link #compress(byte[])} or {@link #newCompressingOutputStream(OutputStream)}.
+     *
+     * @param compressedData
+     *      data to decompress
+     * @return the decompressed serialization data
+     * @throws UncheckedIOException
+     *      if the data is malformed, or was compressed with a different dictionary
+     * @see #newDecompressingInputStream(InputStream)
+     */
+    public static byte[] decompress(byte[] compressedData) {
+        Objects.requireNonNull(compressedData);
+        try (InputStream in = newDecompressingInputStream(new ByteArrayInputStream(compressedData))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
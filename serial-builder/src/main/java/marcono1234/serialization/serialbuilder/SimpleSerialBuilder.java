@@ -2,6 +2,7 @@ package marcono1234.serialization.serialbuilder;
 
 import marcono1234.serialization.serialbuilder.builder.api.Handle;
 import marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer;
+import marcono1234.serialization.serialbuilder.builder.implementation.BuilderOptions;
 import marcono1234.serialization.serialbuilder.builder.implementation.ClassTypeNameHelper;
 import marcono1234.serialization.serialbuilder.builder.implementation.SerialVersionUidHelper;
 import marcono1234.serialization.serialbuilder.simplebuilder.api.ObjectBuildingDataOutput;
@@ -11,8 +12,16 @@ import marcono1234.serialization.serialbuilder.simplebuilder.api.object.serializ
 import marcono1234.serialization.serialbuilder.simplebuilder.implementation.SimpleSerialBuilderImpl;
 
 import java.io.Externalizable;
+import java.io.InputStream;
 import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 /**
  * Provides static entry points for creating Java serialization data. This API is designed for creating serialization
@@ -94,6 +103,20 @@ public class SimpleSerialBuilder {
         return startSerializableObject(new Handle());
     }
 
+    /**
+     * Starts a new object implementing {@link java.io.Serializable}, reusing the builder state of the given context.
+     * Otherwise this method behaves the same as {@link #startSerializableObject()}.
+     *
+     * @param context
+     *      context to reuse; must not be in use by another build
+     * @return <i>next step</i>
+     * @throws IllegalStateException
+     *      if the context is in use by another build
+     */
+    public static SerializableBuilderStart startSerializableObject(SerialBuilderContext context) {
+        return SimpleSerialBuilderImpl.startSerializable(context.builderContext);
+    }
+
     /**
      * Creates a new object implementing {@link java.io.Externalizable} and assigns a handle to it.
      *
@@ -221,6 +244,723 @@ public class SimpleSerialBuilder {
      */
     public static byte[] writeSerializationDataWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
         Objects.requireNonNull(writer);
-        return SimpleSerialBuilderImpl.writeSerializationDataWith(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataWith(BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput}, applying the given options. Otherwise
+     * this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>This can for example be used to {@linkplain SerialBuilderOptions#withMaxSize(long) limit the size} of the
+     * data. The other methods writing serialization data with an {@code ObjectBuildingDataOutput} to a specific
+     * destination have an overload with options as well.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return the serialization data
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static byte[] writeSerializationDataWith(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataWith(options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput}, reusing the builder state of the
+     * given context. Otherwise this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * @param context
+     *      context to reuse; must not be in use by another build
+     * @param writer
+     *      writes the objects and block data content
+     * @return the serialization data
+     * @throws IllegalStateException
+     *      if the context is in use by another build
+     */
+    public static byte[] writeSerializationDataWith(SerialBuilderContext context, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataWith(context.builderContext, writer);
+    }
+
+    /**
+     * Computes the size in bytes of the serialization data written using an {@link ObjectBuildingDataOutput},
+     * without keeping the data. This can for example be used to reject data which would be too large before
+     * allocating memory for it. The writer is called the same way as for {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The size is determined by encoding the data and only counting the bytes instead of storing them.
+     * Computing the size therefore takes about as much CPU time as writing the data.
+     *
+     * @param writer
+     *      writes the objects and block data content
+     * @return the size of the serialization data
+     */
+    public static long computeSerializationDataSize(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.computeSerializationDataSize(BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Computes the size in bytes of the serialization data written using an {@link ObjectBuildingDataOutput},
+     * applying the given options. Otherwise this method behaves the same as
+     * {@link #computeSerializationDataSize(ThrowingConsumer)}.
+     *
+     * <p>The {@linkplain SerialBuilderOptions#withDataListener data listener} is called with the data even though
+     * the data is not kept, which allows for example computing a digest of the data without storing it.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return the size of the serialization data
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static long computeSerializationDataSize(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.computeSerializationDataSize(options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} into an exactly sized {@code byte[]}.
+     * Otherwise this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The writer is called twice: first to {@linkplain #computeSerializationDataSize(ThrowingConsumer) compute
+     * the size} of the data, and then to write the data directly into an array of that size. This avoids growing
+     * and copying buffers, but the data is encoded twice, so it trades CPU time for memory.
+     *
+     * <p>Because the writer is called twice, it must be deterministic and free of side effects: it must write
+     * the same data every time it is called, and must not perform actions which must only happen once, such
+     * as consuming an {@link java.io.InputStream} or iterator. If the second call writes a different amount
+     * of data than the first one, an {@link IllegalStateException} is thrown. Other differences, such as
+     * different data of the same size, cannot be detected.
+     *
+     * @param writer
+     *      writes the objects and block data content
+     * @return the serialization data
+     */
+    public static byte[] writeExactSizeSerializationDataWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeExactSizeSerializationDataWith(BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} into an exactly sized {@code byte[]},
+     * applying the given options. Otherwise this method behaves the same as
+     * {@link #writeExactSizeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The size limit is already checked while computing the size, so no array is allocated for data which is
+     * too large. The {@linkplain SerialBuilderOptions#withDataListener data listener} is only called with the
+     * data of the second writer call.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return the serialization data
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static byte[] writeExactSizeSerializationDataWith(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeExactSizeSerializationDataWith(options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} and returns it as {@link SerialData}.
+     * Otherwise this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>In contrast to a {@code byte[]} the data is stored in multiple segments, so its size is not limited
+     * to about 2 GB, and growing the data does not require copying all data written so far.
+     *
+     * @param writer
+     *      writes the objects and block data content
+     * @return the serialization data
+     */
+    public static SerialData writeSegmentedSerializationDataWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSegmentedSerializationDataWith(BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} and returns it as {@link SerialData},
+     * applying the given options. Otherwise this method behaves the same as
+     * {@link #writeSegmentedSerializationDataWith(ThrowingConsumer)}.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return the serialization data
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static SerialData writeSegmentedSerializationDataWith(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSegmentedSerializationDataWith(options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} directly to the given stream. Otherwise
+     * this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The data is written to the stream incrementally as soon as it is final; only data whose content still
+     * depends on subsequent builder calls, such as the elements of an object array, is buffered temporarily. This
+     * allows writing large amounts of serialization data without having to keep all of it in memory. The stream is
+     * flushed, but not closed once all data has been written. Exceptions thrown by the stream are wrapped in an
+     * {@link java.io.UncheckedIOException}.
+     *
+     * @param out
+     *      stream to write the serialization data to
+     * @param writer
+     *      writes the objects and block data content
+     */
+    public static void writeSerializationDataWith(OutputStream out, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(out);
+        Objects.requireNonNull(writer);
+        SimpleSerialBuilderImpl.writeSerializationDataWith(out, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} directly to the given stream, applying
+     * the given options. Otherwise this method behaves the same as {@link #writeSerializationDataWith(OutputStream, ThrowingConsumer)}.
+     *
+     * @param out
+     *      stream to write the serialization data to
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static void writeSerializationDataWith(OutputStream out, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(out);
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        SimpleSerialBuilderImpl.writeSerializationDataWith(out, options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} directly to the given channel. Otherwise
+     * this method behaves the same as {@link #writeSerializationDataWith(OutputStream, ThrowingConsumer)}.
+     *
+     * @param channel
+     *      channel to write the serialization data to
+     * @param writer
+     *      writes the objects and block data content
+     */
+    public static void writeSerializationDataWith(WritableByteChannel channel, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(channel);
+        writeSerializationDataWith(Channels.newOutputStream(channel), writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} directly to the given channel, applying
+     * the given options. Otherwise this method behaves the same as {@link #writeSerializationDataWith(WritableByteChannel, ThrowingConsumer)}.
+     *
+     * @param channel
+     *      channel to write the serialization data to
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static void writeSerializationDataWith(WritableByteChannel channel, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(channel);
+        writeSerializationDataWith(Channels.newOutputStream(channel), options, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to the given channel, overlapping the
+     * writing of the data with the I/O. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataWith(WritableByteChannel, ThrowingConsumer)}.
+     *
+     * <p>The writer is called on the current thread, while a separate daemon thread writes the data to the channel.
+     * The data is handed over in a bounded number of reused direct buffers, so the writer pauses when the channel
+     * does not keep up. This method only returns once all data has been written to the channel, or writing failed.
+     * This is mainly useful for large amounts of data written to a file or network channel, where otherwise writing
+     * the data and waiting for the I/O would alternate.
+     *
+     * <p>To write the data to the channel on a thread of an existing thread pool instead, use
+     * {@link #writePipelinedSerializationDataWith(Executor, WritableByteChannel, ThrowingConsumer)}.
+     *
+     * @param channel
+     *      channel to write the serialization data to
+     * @param writer
+     *      writes the objects and block data content
+     */
+    public static void writePipelinedSerializationDataWith(WritableByteChannel channel, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(writer);
+        SimpleSerialBuilderImpl.writePipelinedSerializationDataWith(channel, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to the given channel, overlapping the
+     * writing of the data with the I/O and applying the given options. Otherwise this method behaves the same as
+     * {@link #writePipelinedSerializationDataWith(WritableByteChannel, ThrowingConsumer)}.
+     *
+     * @param channel
+     *      channel to write the serialization data to
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static void writePipelinedSerializationDataWith(WritableByteChannel channel, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        SimpleSerialBuilderImpl.writePipelinedSerializationDataWith(channel, options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to the given channel, overlapping the
+     * writing of the data with the I/O, which is performed by a task run by the given executor. Otherwise this
+     * method behaves the same as {@link #writePipelinedSerializationDataWith(WritableByteChannel, ThrowingConsumer)}.
+     *
+     * <p>The executor must run the task concurrently to the current thread, otherwise this method does not
+     * complete; the task blocks until the writer has provided all data or writing has failed. If the executor
+     * rejects the task, the {@link java.util.concurrent.RejectedExecutionException} is thrown without calling
+     * the writer.
+     *
+     * @param executor
+     *      executor running the task writing the data to the channel
+     * @param channel
+     *      channel to write the serialization data to
+     * @param writer
+     *      writes the objects and block data content
+     */
+    public static void writePipelinedSerializationDataWith(Executor executor, WritableByteChannel channel, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(writer);
+        SimpleSerialBuilderImpl.writePipelinedSerializationDataWith(executor, channel, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to the given channel, overlapping the
+     * writing of the data with the I/O, which is performed by a task run by the given executor, and applying the
+     * given options. Otherwise this method behaves the same as
+     * {@link #writePipelinedSerializationDataWith(Executor, WritableByteChannel, ThrowingConsumer)} and
+     * {@link #writePipelinedSerializationDataWith(WritableByteChannel, SerialBuilderOptions, ThrowingConsumer)}.
+     *
+     * @param executor
+     *      executor running the task writing the data to the channel
+     * @param channel
+     *      channel to write the serialization data to
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static void writePipelinedSerializationDataWith(Executor executor, WritableByteChannel channel, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        SimpleSerialBuilderImpl.writePipelinedSerializationDataWith(executor, channel, options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to the given file. If the file exists
+     * it is overwritten, otherwise it is created. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The data is written to the file through a buffer of fixed size, and values which only become known
+     * later, such as the number of object array elements, are patched in place. Therefore the amount of
+     * memory used does not depend on the size of the data, which allows writing files of several gigabytes.
+     * If writing fails, the file is truncated to size 0. Exceptions thrown while accessing the file are
+     * wrapped in an {@link java.io.UncheckedIOException}.
+     *
+     * @param file
+     *      file to write the serialization data to
+     * @param writer
+     *      writes the objects and block data content
+     * @return the number of written bytes
+     */
+    public static long writeSerializationDataWith(Path file, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataWith(file, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to the given file, applying the given
+     * options. Otherwise this method behaves the same as {@link #writeSerializationDataWith(Path, ThrowingConsumer)}.
+     *
+     * @param file
+     *      file to write the serialization data to
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return the number of written bytes
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static long writeSerializationDataWith(Path file, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataWith(file, options.builderOptions, writer);
+    }
+
+    /**
+     * Returns an input stream which provides the serialization data written using an {@link ObjectBuildingDataOutput}
+     * on demand. Otherwise this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The writer is called on a separate daemon thread, which hands over the data to the stream in chunks
+     * as soon as it is final. The thread pauses while the reader of the stream does not keep up, so the amount
+     * of memory used does not depend on the size of the data (except for pending object arrays, see
+     * {@link #writeSerializationDataWith(OutputStream, ThrowingConsumer)}). The stream can for example be passed
+     * directly to an {@link java.io.ObjectInputStream}, or be converted to a channel with
+     * {@link Channels#newChannel(java.io.InputStream)}.
+     *
+     * <p>Because the writer runs on a different thread than the caller of this method and the reader of the
+     * stream, it must not depend on thread-local state of these threads, such as {@link ThreadLocal} values
+     * or held locks, and objects it shares with other threads must be accessed in a thread-safe way.
+     *
+     * <p>If the writer throws an exception, reading from the stream throws an {@link java.io.IOException} having
+     * that exception as cause. Closing the stream before all data has been read stops the writer the next
+     * time it provides data. The stream should always be closed; if it is discarded without closing it, the
+     * writer is only stopped once the stream has been garbage collected.
+     *
+     * @param writer
+     *      writes the objects and block data content
+     * @return stream providing the serialization data
+     */
+    public static InputStream newSerializationDataInputStream(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.newSerializationDataInputStream(BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Returns an input stream which provides the serialization data written using an {@link ObjectBuildingDataOutput}
+     * on demand, applying the given options. Otherwise this method behaves the same as
+     * {@link #newSerializationDataInputStream(ThrowingConsumer)}.
+     *
+     * <p>If the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size},
+     * reading from the stream throws an {@link java.io.IOException} having the {@link DataSizeLimitExceededException}
+     * as cause.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return stream providing the serialization data
+     */
+    public static InputStream newSerializationDataInputStream(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.newSerializationDataInputStream(options.builderOptions, writer);
+    }
+
+    /**
+     * Returns a publisher emitting the serialization data written using an {@link ObjectBuildingDataOutput} in
+     * chunks. Otherwise this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>For every subscriber the writer is called anew on a separate daemon thread, which emits the data in
+     * chunks of fixed size (except for the last one) as soon as it is final. The writer pauses while the subscriber
+     * has no outstanding demand, so a slow subscriber does not cause the data to be buffered in memory. The
+     * emitted buffers are owned by the subscriber. If the writer throws an exception, it is passed to
+     * {@link Flow.Subscriber#onError(Throwable)}. Cancelling the subscription, or requesting a non-positive
+     * number of chunks, stops the writer the next time it provides data. If the subscriber throws an exception,
+     * the subscription is considered cancelled and no further signals are sent to it. If the thread is interrupted
+     * while waiting for demand, an {@link java.io.UncheckedIOException} wrapping an
+     * {@link java.io.InterruptedIOException} is passed to {@code onError}.
+     *
+     * <p>To run the writers on threads of an existing thread pool instead, use
+     * {@link #newSerializationDataPublisher(Executor, ThrowingConsumer)}.
+     *
+     * @param writer
+     *      writes the objects and block data content
+     * @return publisher emitting the serialization data
+     */
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.newSerializationDataPublisher(BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Returns a publisher emitting the serialization data written using an {@link ObjectBuildingDataOutput} in
+     * chunks, applying the given options. Otherwise this method behaves the same as
+     * {@link #newSerializationDataPublisher(ThrowingConsumer)}.
+     *
+     * <p>If the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size},
+     * the {@link DataSizeLimitExceededException} is passed to {@link Flow.Subscriber#onError(Throwable)}. The options
+     * apply separately to the data of every subscriber, so a {@linkplain SerialBuilderOptions#withDataListener(java.util.function.Consumer)
+     * data listener} is called with the data of every subscriber.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return publisher emitting the serialization data
+     */
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.newSerializationDataPublisher(options.builderOptions, writer);
+    }
+
+    /**
+     * Returns a publisher emitting the serialization data written using an {@link ObjectBuildingDataOutput} in
+     * chunks, calling the writer for every subscriber in a task run by the given executor. Otherwise this method
+     * behaves the same as {@link #newSerializationDataPublisher(ThrowingConsumer)}.
+     *
+     * <p>The task blocks while the subscriber has no outstanding demand, so the executor should not be one with
+     * a small fixed number of threads shared with other tasks, such as {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * If the executor rejects the task, the {@link java.util.concurrent.RejectedExecutionException} is passed to
+     * {@link Flow.Subscriber#onError(Throwable)}.
+     *
+     * @param executor
+     *      executor running the writer for every subscriber
+     * @param writer
+     *      writes the objects and block data content
+     * @return publisher emitting the serialization data
+     */
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(Executor executor, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.newSerializationDataPublisher(executor, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Returns a publisher emitting the serialization data written using an {@link ObjectBuildingDataOutput} in
+     * chunks, calling the writer for every subscriber in a task run by the given executor and applying the given
+     * options. Otherwise this method behaves the same as {@link #newSerializationDataPublisher(Executor, ThrowingConsumer)}
+     * and {@link #newSerializationDataPublisher(SerialBuilderOptions, ThrowingConsumer)}.
+     *
+     * @param executor
+     *      executor running the writer for every subscriber
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return publisher emitting the serialization data
+     */
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(Executor executor, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.newSerializationDataPublisher(executor, options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} into the given buffer, starting at its
+     * current position. The buffer can be a heap or a direct buffer. Once all data has been written, the position
+     * of the buffer is advanced by the number of written bytes. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>If the remaining space of the buffer is not sufficient, a {@link java.nio.BufferOverflowException} is
+     * thrown. In that case the position of the buffer is unchanged, but the content of the remaining space is
+     * unspecified.
+     *
+     * @param target
+     *      buffer to write the serialization data to
+     * @param writer
+     *      writes the objects and block data content
+     * @return the number of written bytes
+     */
+    public static int writeSerializationDataWith(ByteBuffer target, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(target);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataWith(target, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} into the given buffer, applying the
+     * given options. Otherwise this method behaves the same as {@link #writeSerializationDataWith(ByteBuffer, ThrowingConsumer)}.
+     *
+     * @param target
+     *      buffer to write the serialization data to
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return the number of written bytes
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static int writeSerializationDataWith(ByteBuffer target, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(target);
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataWith(target, options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} into the given array, starting at the
+     * given offset. Otherwise this method behaves the same as {@link #writeSerializationDataWith(ByteBuffer, ThrowingConsumer)}.
+     *
+     * @param target
+     *      array to write the serialization data to
+     * @param offset
+     *      index at which to start writing
+     * @param writer
+     *      writes the objects and block data content
+     * @return the number of written bytes
+     */
+    public static int writeSerializationDataWith(byte[] target, int offset, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(target);
+        return writeSerializationDataWith(ByteBuffer.wrap(target, offset, target.length - offset), writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} into the given array, applying the
+     * given options. Otherwise this method behaves the same as {@link #writeSerializationDataWith(byte[], int, ThrowingConsumer)}.
+     *
+     * @param target
+     *      array to write the serialization data to
+     * @param offset
+     *      index at which to start writing
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return the number of written bytes
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static int writeSerializationDataWith(byte[] target, int offset, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(target);
+        return writeSerializationDataWith(ByteBuffer.wrap(target, offset, target.length - offset), options, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} and returns the internal buffer it was
+     * written to, without copying the data. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The result is a heap buffer with position 0 and the size of the data as limit. Its backing array,
+     * which might be larger than the data, is exclusively owned by the caller and can be accessed with
+     * {@link ByteBuffer#array()}.
+     *
+     * @param writer
+     *      writes the objects and block data content
+     * @return buffer containing the serialization data
+     */
+    public static ByteBuffer writeSerializationDataToBufferWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataToBufferWith(false, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} and returns the internal buffer it was
+     * written to, applying the given options. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataToBufferWith(ThrowingConsumer)}.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return buffer containing the serialization data
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static ByteBuffer writeSerializationDataToBufferWith(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataToBufferWith(false, options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to a new direct buffer. Otherwise
+     * this method behaves the same as {@link #writeSerializationDataWith(ThrowingConsumer)}.
+     *
+     * <p>The memory of direct buffers is outside of the Java heap, so large data does not increase garbage
+     * collection overhead, and the buffer can be passed to NIO channels without copying it. The result has
+     * position 0 and the size of the data as limit; its capacity might be larger than the data.
+     *
+     * <p>The data has to be stored in a single buffer, so when the buffer is full a larger one is allocated
+     * and the data is copied. While copying, both buffers exist at the same time. If the size of the data
+     * can be estimated, {@link #writeSerializationDataToDirectBufferWith(int, ThrowingConsumer)} should be
+     * used instead.
+     *
+     * @param writer
+     *      writes the objects and block data content
+     * @return direct buffer containing the serialization data
+     */
+    public static ByteBuffer writeSerializationDataToDirectBufferWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataToBufferWith(true, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to a new direct buffer, applying the
+     * given options. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataToDirectBufferWith(ThrowingConsumer)}.
+     *
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return direct buffer containing the serialization data
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static ByteBuffer writeSerializationDataToDirectBufferWith(SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataToBufferWith(true, options.builderOptions, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to a new direct buffer with the
+     * given initial capacity. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataToDirectBufferWith(ThrowingConsumer)}.
+     *
+     * <p>If the data does not exceed the expected size, the buffer is never reallocated and its data is never
+     * copied. If the data is larger, the buffer grows as usual.
+     *
+     * @param expectedSize
+     *      expected size of the data in bytes, used as initial capacity of the buffer
+     * @param writer
+     *      writes the objects and block data content
+     * @return direct buffer containing the serialization data
+     * @throws IllegalArgumentException
+     *      if {@code expectedSize} is negative
+     */
+    public static ByteBuffer writeSerializationDataToDirectBufferWith(int expectedSize, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataToBufferWith(true, expectedSize, BuilderOptions.DEFAULT, writer);
+    }
+
+    /**
+     * Writes serialization data using an {@link ObjectBuildingDataOutput} to a new direct buffer with the
+     * given initial capacity, applying the given options. Otherwise this method behaves the same as
+     * {@link #writeSerializationDataToDirectBufferWith(int, ThrowingConsumer)}.
+     *
+     * @param expectedSize
+     *      expected size of the data in bytes, used as initial capacity of the buffer
+     * @param options
+     *      options to apply
+     * @param writer
+     *      writes the objects and block data content
+     * @return direct buffer containing the serialization data
+     * @throws IllegalArgumentException
+     *      if {@code expectedSize} is negative
+     * @throws DataSizeLimitExceededException
+     *      if the size of the data would exceed the {@linkplain SerialBuilderOptions#withMaxSize(long) maximum size}
+     */
+    public static ByteBuffer writeSerializationDataToDirectBufferWith(int expectedSize, SerialBuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(writer);
+        return SimpleSerialBuilderImpl.writeSerializationDataToBufferWith(true, expectedSize, options.builderOptions, writer);
     }
 }
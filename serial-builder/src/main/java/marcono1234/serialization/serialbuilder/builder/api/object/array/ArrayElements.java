@@ -1,5 +1,13 @@
 package marcono1234.serialization.serialbuilder.builder.api.object.array;
 
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
 public interface ArrayElements<C> {
     // Note: Don't use varargs for primitive array elements to avoid calling wrong overload,
     // E.g. `elements(Byte.MAX_VALUE, 1)` calling `elements(int...)`
@@ -60,10 +68,136 @@ public interface ArrayElements<C> {
      */
     ArrayEnd<C> elements(double[] array);
 
+    // Note: Methods for computed elements have type specific names because lambda arguments would otherwise
+    // make overloads with different functional interface types ambiguous
+
+    /**
+     * Writes {@code int} array elements which are computed on the fly by the given function, without the
+     * complete array having to exist in memory. The function is called once for every index, in ascending order,
+     * and must not use this builder.
+     *
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     */
+    ArrayEnd<C> intElements(int length, IntUnaryOperator elementFunction);
+
+    /**
+     * Writes {@code long} array elements which are computed on the fly by the given function, without the
+     * complete array having to exist in memory. The function is called once for every index, in ascending order,
+     * and must not use this builder.
+     *
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     */
+    ArrayEnd<C> longElements(int length, IntToLongFunction elementFunction);
+
+    /**
+     * Writes {@code double} array elements which are computed on the fly by the given function, without the
+     * complete array having to exist in memory. The function is called once for every index, in ascending order,
+     * and must not use this builder.
+     *
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     */
+    ArrayEnd<C> doubleElements(int length, IntToDoubleFunction elementFunction);
+
+    /**
+     * Writes the {@code int} array elements provided by the stream, without the complete array having to
+     * exist in memory.
+     *
+     * <p>Because the elements are written while the stream is consumed, a mismatch between {@code length} and
+     * the number of stream elements is only detected while writing: if the stream has fewer elements, the
+     * {@link IllegalArgumentException} is thrown once it is exhausted, and if it has more elements, only after
+     * all {@code length} elements have been written. In both cases the data is left partially written and
+     * should be discarded.
+     *
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements; it is closed once the elements have been written
+     * @return <i>next step</i>
+     */
+    ArrayEnd<C> intElements(int length, IntStream elements);
+
+    /**
+     * Writes the {@code long} array elements provided by the stream, without the complete array having to
+     * exist in memory.
+     *
+     * <p>Because the elements are written while the stream is consumed, a mismatch between {@code length} and
+     * the number of stream elements is only detected while writing: if the stream has fewer elements, the
+     * {@link IllegalArgumentException} is thrown once it is exhausted, and if it has more elements, only after
+     * all {@code length} elements have been written. In both cases the data is left partially written and
+     * should be discarded.
+     *
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements; it is closed once the elements have been written
+     * @return <i>next step</i>
+     */
+    ArrayEnd<C> longElements(int length, LongStream elements);
+
+    /**
+     * Writes the {@code double} array elements provided by the stream, without the complete array having to
+     * exist in memory.
+     *
+     * <p>Because the elements are written while the stream is consumed, a mismatch between {@code length} and
+     * the number of stream elements is only detected while writing: if the stream has fewer elements, the
+     * {@link IllegalArgumentException} is thrown once it is exhausted, and if it has more elements, only after
+     * all {@code length} elements have been written. In both cases the data is left partially written and
+     * should be discarded.
+     *
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements; it is closed once the elements have been written
+     * @return <i>next step</i>
+     */
+    ArrayEnd<C> doubleElements(int length, DoubleStream elements);
+
+    /**
+     * Writes array elements which are read in already encoded form from the channel. The channel must provide
+     * the elements in the encoding used by {@link java.io.DataOutput}, that is in big-endian byte order and
+     * with 1 byte per {@code boolean}. The data is written as is; it is not validated.
+     *
+     * <p>Exactly {@code length * size(componentType)} bytes are read from the channel. The channel must be
+     * in blocking mode. If it ends prematurely, an {@link java.io.UncheckedIOException} is thrown.
+     *
+     * @param componentType
+     *      primitive component type of the array, e.g. {@code long.class}
+     * @param length
+     *      number of elements, must not be negative
+     * @param channel
+     *      channel providing the encoded elements
+     * @return <i>next step</i>
+     */
+    ArrayEnd<C> encodedElements(Class<?> componentType, int length, ReadableByteChannel channel);
+
     /**
      * Begins the object elements.
      *
      * @return <i>next step</i>
      */
     ArrayObjectElementsStart<C> beginObjectElements();
+
+    /**
+     * Begins the object elements, with a number of elements which is known in advance. In contrast to
+     * {@link #beginObjectElements()} the elements count is written directly, which avoids having to retain
+     * the data of all elements until the elements are ended. Exactly the given number of elements must be
+     * written, otherwise an {@link IllegalStateException} is thrown.
+     *
+     * @param elementsCount
+     *      number of elements which will be written, must not be negative
+     * @return <i>next step</i>
+     */
+    ArrayObjectElementsStart<C> beginObjectElements(int elementsCount);
 }
@@ -0,0 +1,67 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.util.Objects;
+
+/**
+ * Holds a {@link SerialBuilderImpl} and its sink which are reused for multiple builds, to avoid allocating a
+ * new builder and its buffers for every build. Only one build can use the context at a time.
+ *
+ * <p>Builder APIs which wrap the builder can subclass this class to reuse their own state as well.
+ */
+public class BuilderContext {
+    private final SegmentedSink sink;
+    /** Sink passing the data to the listener of the options; {@code null} if there is no listener */
+    private final ListeningSink listeningSink;
+    /** Lazily created builder; {@code null} if no build has used this context yet */
+    private SerialBuilderImpl builder;
+    private boolean isInUse;
+    /** Options of all builds using this context */
+    private final BuilderOptions options;
+
+    public BuilderContext(BuilderOptions options) {
+        this.options = Objects.requireNonNull(options);
+        sink = new SegmentedSink(true);
+        listeningSink = options.dataListener() == null ? null : new ListeningSink(sink, options.dataListener());
+        builder = null;
+        isInUse = false;
+    }
+
+    public BuilderOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Obtains the builder for a new build, and marks this context as in use until {@link #release()} is called.
+     */
+    SerialBuilderImpl acquireBuilder(boolean isBuildingSingleObject) {
+        if (isInUse) {
+            throw new IllegalStateException("Context is used by a build which has not been finished; call reset() to discard that build");
+        }
+        isInUse = true;
+
+        if (builder == null) {
+            builder = new SerialBuilderImpl(isBuildingSingleObject, listeningSink == null ? sink : listeningSink, this);
+        } else {
+            sink.reset();
+            if (listeningSink != null) {
+                listeningSink.reset();
+            }
+            builder.reset(isBuildingSingleObject);
+        }
+        return builder;
+    }
+
+    /**
+     * Marks the build using this context as finished.
+     */
+    void release() {
+        isInUse = false;
+    }
+
+    /**
+     * Discards the build currently using this context, if any.
+     */
+    public void reset() {
+        isInUse = false;
+    }
+}
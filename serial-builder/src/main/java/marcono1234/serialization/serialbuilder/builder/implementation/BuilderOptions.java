@@ -0,0 +1,50 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Options affecting how the builders behave and how the serialization data is written.
+ *
+ * @param trustArrays
+ *      whether arrays provided by the user are trusted to not be modified until the build has finished, in which
+ *      case they are not copied even if writing them is deferred
+ * @param checkUsage
+ *      whether incorrect usage of {@code ObjectBuildingDataOutput} is detected, such as using an output which is
+ *      not the currently active one, or using it while a builder call is incomplete
+ * @param maxSize
+ *      maximum total size of the serialization data in bytes; {@link #NO_SIZE_LIMIT} if the size is not limited.
+ *      Only applies to methods writing serialization data with an {@code ObjectBuildingDataOutput}
+ *      and to builds using a {@link BuilderContext}
+ * @param dataListener
+ *      listener which is called with the final serialization data while it is written; {@code null} if there is
+ *      no listener. Only applies to methods writing serialization data with an {@code ObjectBuildingDataOutput}
+ *      and to builds using a {@link BuilderContext}
+ */
+public record BuilderOptions(boolean trustArrays, boolean checkUsage, long maxSize, Consumer<? super ByteBuffer> dataListener) {
+    /** Value of {@link #maxSize} if the size of the data is not limited */
+    public static final long NO_SIZE_LIMIT = Long.MAX_VALUE;
+    public static final BuilderOptions DEFAULT = new BuilderOptions(false, true, NO_SIZE_LIMIT, null);
+
+    public BuilderOptions {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size must not be negative: " + maxSize);
+        }
+    }
+
+    public BuilderOptions withTrustArrays(boolean trustArrays) {
+        return new BuilderOptions(trustArrays, checkUsage, maxSize, dataListener);
+    }
+
+    public BuilderOptions withCheckUsage(boolean checkUsage) {
+        return new BuilderOptions(trustArrays, checkUsage, maxSize, dataListener);
+    }
+
+    public BuilderOptions withMaxSize(long maxSize) {
+        return new BuilderOptions(trustArrays, checkUsage, maxSize, dataListener);
+    }
+
+    public BuilderOptions withDataListener(Consumer<? super ByteBuffer> dataListener) {
+        return new BuilderOptions(trustArrays, checkUsage, maxSize, dataListener);
+    }
+}
@@ -0,0 +1,140 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Sink writing to a {@link ByteBuffer}, starting at the position the buffer had when the sink was created.
+ * The sink either writes to a caller-provided buffer with fixed capacity, or to an internal heap or direct
+ * buffer which grows when necessary.
+ *
+ * <p>The sink only uses absolute operations on the buffer; the position of a caller-provided buffer is only
+ * advanced by {@link #finish()}. Therefore if writing fails, the position of the buffer is unchanged.
+ */
+class ByteBufferSink extends OutputSink {
+    private static final int INITIAL_GROWABLE_CAPACITY = 256;
+    /** Maximum array size; some VMs reserve header words in an array */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private ByteBuffer buffer;
+    private final boolean isGrowable;
+    /** Whether a growable sink allocates direct buffers */
+    private final boolean isDirect;
+    /** Buffer index at which the data starts */
+    private final int start;
+    /** Number of bytes written so far */
+    private int size;
+
+    private ByteBufferSink(ByteBuffer buffer, boolean isGrowable) {
+        this.buffer = buffer;
+        this.isGrowable = isGrowable;
+        isDirect = buffer.isDirect();
+        start = buffer.position();
+        size = 0;
+    }
+
+    /**
+     * Creates a sink writing to the remaining space of the given buffer. If the space is not sufficient
+     * a {@link BufferOverflowException} is thrown.
+     */
+    public static ByteBufferSink forBuffer(ByteBuffer buffer) {
+        Objects.requireNonNull(buffer);
+        if (buffer.isReadOnly()) {
+            throw new IllegalArgumentException("Buffer is read-only");
+        }
+        return new ByteBufferSink(buffer, false);
+    }
+
+    /**
+     * Creates a sink writing to an internal buffer, which can be obtained with {@link #takeBuffer()}.
+     *
+     * @param direct
+     *      whether to use a direct buffer, whose memory is outside of the Java heap
+     */
+    public static ByteBufferSink growable(boolean direct) {
+        return growable(direct, INITIAL_GROWABLE_CAPACITY);
+    }
+
+    /**
+     * Creates a sink writing to an internal buffer with the given initial capacity, which can be obtained with
+     * {@link #takeBuffer()}. The buffer only grows if more data than {@code initialCapacity} is written.
+     *
+     * @param direct
+     *      whether to use a direct buffer, whose memory is outside of the Java heap
+     * @param initialCapacity
+     *      initial capacity of the buffer
+     */
+    public static ByteBufferSink growable(boolean direct, int initialCapacity) {
+        return new ByteBufferSink(allocate(Math.min(initialCapacity, MAX_ARRAY_SIZE), direct), true);
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean direct) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private void ensureCapacity(int len) {
+        int remaining = buffer.limit() - start - size;
+        if (len <= remaining) {
+            return;
+        }
+        if (!isGrowable) {
+            throw new BufferOverflowException();
+        }
+
+        long requiredCapacity = (long) size + len;
+        if (requiredCapacity > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Data is too large for a single buffer: " + requiredCapacity + " bytes");
+        }
+        int newCapacity = (int) Math.min(Math.max(requiredCapacity, buffer.capacity() * 2L), MAX_ARRAY_SIZE);
+        ByteBuffer newBuffer = allocate(newCapacity, isDirect);
+        newBuffer.put(0, buffer, 0, size);
+        buffer = newBuffer;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        buffer.put(start + size, b, off, len);
+        size += len;
+    }
+
+    @Override
+    public boolean isPatchable() {
+        return true;
+    }
+
+    @Override
+    public void patch(long position, byte[] b, int off, int len) {
+        if (position < 0 || position + len > size) {
+            throw new IllegalArgumentException("Invalid patch position " + position + " for length " + len);
+        }
+        buffer.put(start + (int) position, b, off, len);
+    }
+
+    @Override
+    public void finish() {
+        buffer.position(start + size);
+    }
+
+    /**
+     * Returns the number of bytes written to this sink.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the internal buffer of a {@linkplain #growable(boolean) growable} sink, with position 0 and the
+     * number of written bytes as limit. Must only be called once all data has been written, and the sink
+     * must not be used anymore afterwards because the buffer is not copied.
+     */
+    public ByteBuffer takeBuffer() {
+        if (!isGrowable) {
+            throw new IllegalStateException("Buffer is owned by the caller");
+        }
+        ByteBuffer result = buffer.flip();
+        buffer = null;
+        return result;
+    }
+}
@@ -0,0 +1,264 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded hand-off of data chunks from a single producer thread to a single consumer thread. The producer
+ * blocks while the pipe is full, so the amount of memory used is limited regardless of the total size of the
+ * data, and production pauses when the consumer is slow. Chunks which have been consumed can be recycled to
+ * avoid allocating new ones.
+ *
+ * <p>The producer writes data using the {@linkplain #sink() sink} of the pipe, and either finishes the pipe
+ * by {@linkplain OutputSink#finish() finishing} the sink, or {@linkplain #fail(Throwable) fails} it. The
+ * consumer {@linkplain #take() takes} chunks until the end of the data is reached, and can {@linkplain #close()
+ * close} the pipe early, in which case the producer is cancelled the next time it tries to add a chunk.
+ * If the producer thread is interrupted while waiting for the consumer, writing fails with an
+ * {@link UncheckedIOException} wrapping an {@link InterruptedIOException}.
+ *
+ * <p>At most {@code capacity + 2} chunks exist at the same time: the pending chunks, the chunk currently
+ * being filled by the producer and the chunk currently being read by the consumer.
+ */
+class ChunkPipe {
+    static final int DEFAULT_CHUNK_SIZE = 8192;
+    static final int DEFAULT_CAPACITY = 4;
+
+    private final int chunkSize;
+    /** Maximum number of chunks which can be pending */
+    private final int capacity;
+    /** Whether direct buffers are used for the chunks, which avoids copying them when writing to a channel */
+    private final boolean useDirectChunks;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    /** Chunks ready to be taken by the consumer; flipped for reading */
+    private final ArrayDeque<ByteBuffer> chunks;
+    /** Recycled chunks which can be reused by the producer */
+    private final ArrayDeque<ByteBuffer> freeChunks;
+    private boolean isFinished;
+    /** Exception which caused the producer to fail; {@code null} if it has not failed */
+    private Throwable failure;
+    private boolean isClosed;
+
+    /**
+     * Thrown to the producer when the consumer has closed the pipe. A separate exception type is used so that
+     * it can be distinguished from a {@link CancellationException} thrown by the code producing the data.
+     */
+    static class PipeClosedException extends CancellationException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private PipeClosedException() {
+            super("Consumer has closed the pipe");
+        }
+    }
+
+    public ChunkPipe(int chunkSize, int capacity, boolean useDirectChunks) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.chunkSize = chunkSize;
+        this.capacity = capacity;
+        this.useDirectChunks = useDirectChunks;
+        chunks = new ArrayDeque<>(capacity);
+        freeChunks = new ArrayDeque<>(capacity);
+        isFinished = false;
+        failure = null;
+        isClosed = false;
+    }
+
+    public ChunkPipe() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Creates the sink for the producer. Must only be called once.
+     */
+    public OutputSink sink() {
+        return new OutputSink() {
+            private ByteBuffer chunk = obtainChunk();
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                while (len > 0) {
+                    int writeLength = Math.min(len, chunk.remaining());
+                    chunk.put(b, off, writeLength);
+                    off += writeLength;
+                    len -= writeLength;
+
+                    if (!chunk.hasRemaining()) {
+                        put(chunk);
+                        chunk = obtainChunk();
+                    }
+                }
+            }
+
+            @Override
+            public void finish() {
+                if (chunk.position() > 0) {
+                    put(chunk);
+                }
+                chunk = null;
+                ChunkPipe.this.finish();
+            }
+        };
+    }
+
+    private ByteBuffer obtainChunk() {
+        lock.lock();
+        try {
+            ByteBuffer chunk = freeChunks.pollFirst();
+            if (chunk != null) {
+                return chunk.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return useDirectChunks ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+    }
+
+    private void put(ByteBuffer chunk) {
+        lock.lock();
+        try {
+            while (chunks.size() >= capacity && !isClosed) {
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the consumer"));
+                }
+            }
+            if (isClosed) {
+                throw new PipeClosedException();
+            }
+            chunks.addLast(chunk.flip());
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finish() {
+        lock.lock();
+        try {
+            isFinished = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the producer as failed. Chunks which have not been taken yet are discarded, and the consumer
+     * receives the exception the next time it tries to take a chunk.
+     */
+    public void fail(Throwable t) {
+        lock.lock();
+        try {
+            failure = t;
+            chunks.clear();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next chunk, blocking until one is available. The returned buffer is ready for reading, and
+     * can be {@linkplain #recycle(ByteBuffer) recycled} once it is not used anymore.
+     *
+     * @return the next chunk; {@code null} if the end of the data has been reached
+     * @throws IOException
+     *      if the producer failed, the pipe is closed, or the thread was interrupted while waiting
+     */
+    public ByteBuffer take() throws IOException {
+        lock.lock();
+        try {
+            while (true) {
+                if (isClosed) {
+                    throw new IOException("Pipe is closed");
+                }
+                if (failure != null) {
+                    throw new IOException("Failed writing serialization data", failure);
+                }
+
+                ByteBuffer chunk = chunks.pollFirst();
+                if (chunk != null) {
+                    notFull.signal();
+                    return chunk;
+                }
+                if (isFinished) {
+                    return null;
+                }
+
+                try {
+                    notEmpty.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for serialization data");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes all chunks and writes them to the channel, until the end of the data has been reached. Chunks
+     * are recycled once they have been written.
+     *
+     * @throws IOException
+     *      if the producer failed, or writing to the channel failed
+     */
+    public void drainTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer chunk;
+        while ((chunk = take()) != null) {
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            recycle(chunk);
+        }
+    }
+
+    /**
+     * Returns a chunk obtained from {@link #take()} so that the producer can reuse it.
+     */
+    public void recycle(ByteBuffer chunk) {
+        lock.lock();
+        try {
+            if (freeChunks.size() < capacity) {
+                freeChunks.addLast(chunk);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the pipe from the consumer side. The producer is cancelled the next time it tries to add
+     * a chunk, and pending chunks are discarded.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            isClosed = true;
+            chunks.clear();
+            freeChunks.clear();
+            notFull.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Input stream reading the chunks of a {@link ChunkPipe}. Closing the stream closes the pipe, which cancels
+ * the producer. If the stream is discarded without closing it, the pipe is closed once the stream has been
+ * garbage collected, so that the producer does not wait for the consumer forever.
+ */
+class ChunkPipeInputStream extends InputStream {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final ChunkPipe pipe;
+    /** Closes the pipe; must not reference this stream to allow it to become unreachable */
+    private final Cleaner.Cleanable pipeCloser;
+    /** Chunk currently being read; {@code null} if no chunk has been taken yet or the chunk was fully read */
+    private ByteBuffer chunk;
+    private boolean isEnd;
+    private boolean isClosed;
+
+    public ChunkPipeInputStream(ChunkPipe pipe) {
+        this.pipe = Objects.requireNonNull(pipe);
+        pipeCloser = CLEANER.register(this, pipe::close);
+        chunk = null;
+        isEnd = false;
+        isClosed = false;
+    }
+
+    /**
+     * Makes sure a chunk with remaining data is available, blocking if necessary.
+     *
+     * @return whether data is available; {@code false} if the end of the data has been reached
+     */
+    private boolean fillChunk() throws IOException {
+        if (isClosed) {
+            throw new IOException("Stream is closed");
+        }
+        while (chunk == null || !chunk.hasRemaining()) {
+            if (chunk != null) {
+                pipe.recycle(chunk);
+                chunk = null;
+            }
+            if (isEnd) {
+                return false;
+            }
+
+            chunk = pipe.take();
+            if (chunk == null) {
+                isEnd = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillChunk()) {
+            return -1;
+        }
+        return chunk.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!fillChunk()) {
+            return -1;
+        }
+
+        int readLength = Math.min(len, chunk.remaining());
+        chunk.get(b, off, readLength);
+        return readLength;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (isClosed) {
+            throw new IOException("Stream is closed");
+        }
+        return chunk == null ? 0 : chunk.remaining();
+    }
+
+    @Override
+    public void close() {
+        if (!isClosed) {
+            isClosed = true;
+            chunk = null;
+            pipeCloser.clean();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+/**
+ * Sink which discards all data and only counts the number of written bytes. Because it is patchable, the
+ * {@link OutputBuffer} writing to it only has to keep the current block data chunk in memory.
+ */
+class CountingSink extends OutputSink {
+    private long size;
+
+    public CountingSink() {
+        size = 0;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        size += len;
+    }
+
+    @Override
+    public boolean isPatchable() {
+        return true;
+    }
+
+    @Override
+    public void patch(long position, byte[] b, int off, int len) {
+        // Patching does not change the size
+    }
+
+    /**
+     * Returns the number of bytes written to this sink.
+     */
+    public long size() {
+        return size;
+    }
+}
@@ -0,0 +1,29 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Creates the daemon threads used when no executor is provided for writing or consuming serialization data
+ * in the background. Daemon threads are used so that an abandoned stream or subscription does not prevent
+ * the JVM from exiting.
+ */
+final class DaemonThreads {
+    private DaemonThreads() {
+    }
+
+    /**
+     * Starts a new daemon thread running the task.
+     */
+    static void start(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns an executor running every task on a new daemon thread with the given name.
+     */
+    static Executor executor(String name) {
+        return task -> start(name, task);
+    }
+}
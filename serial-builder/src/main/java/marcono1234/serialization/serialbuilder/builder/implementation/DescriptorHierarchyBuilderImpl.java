@@ -34,7 +34,7 @@ public class DescriptorHierarchyBuilderImpl implements DescriptorHierarchyStart,
     private final AtomicInteger nextHandleIndex;
     /** Handle which is assigned after descriptor hierarchy has been written */
     private final Handle postDescriptorHierarchyHandle;
-    private final Consumer<Consumer<UncheckedBlockDataOutputStream>> actionsConsumer;
+    private final UncheckedBlockDataOutputStream out;
 
     private static Handle verifyUnassigned(Handle handle) {
         if (handle.isAssigned()) {
@@ -43,11 +43,11 @@ public class DescriptorHierarchyBuilderImpl implements DescriptorHierarchyStart,
         return handle;
     }
 
-    public DescriptorHierarchyBuilderImpl(Object parent, AtomicInteger nextHandleIndex, Handle postDescriptorHierarchyHandle, Consumer<Consumer<UncheckedBlockDataOutputStream>> actionsConsumer) {
+    public DescriptorHierarchyBuilderImpl(Object parent, AtomicInteger nextHandleIndex, Handle postDescriptorHierarchyHandle, UncheckedBlockDataOutputStream out) {
         this.parent = parent;
         this.nextHandleIndex = nextHandleIndex;
         this.postDescriptorHierarchyHandle = verifyUnassigned(postDescriptorHierarchyHandle);
-        this.actionsConsumer = actionsConsumer;
+        this.out = out;
     }
 
     /**
@@ -110,19 +110,15 @@ public class DescriptorHierarchyBuilderImpl implements DescriptorHierarchyStart,
         int handleIndex = nextHandleIndex.getAndIncrement();
         HandleAccess.INSTANCE.assignIndex(unassignedHandle, handleIndex);
 
-        // Clone array to prevent accidental modification in the meantime
-        String[] namesCopy = interfaceNames.clone();
-        actionsConsumer.accept(out -> {
-            out.writeByte(TC_PROXYCLASSDESC);
-            out.writeInt(namesCopy.length);
-            for (String name : namesCopy) {
-                out.writeUTF(typeNameToClassGetName(name));
-            }
+        out.writeByte(TC_PROXYCLASSDESC);
+        out.writeInt(interfaceNames.length);
+        for (String name : interfaceNames) {
+            out.writeUTF(typeNameToClassGetName(name));
+        }
 
-            out.setBlockDataMode(true);
-            out.setBlockDataMode(false);
-            out.writeByte(TC_ENDBLOCKDATA);
-        });
+        out.setBlockDataMode(true);
+        out.setBlockDataMode(false);
+        out.writeByte(TC_ENDBLOCKDATA);
         return this;
     }
 
@@ -133,7 +129,7 @@ public class DescriptorHierarchyBuilderImpl implements DescriptorHierarchyStart,
         int handleIndex = nextHandleIndex.getAndIncrement();
         HandleAccess.INSTANCE.assignIndex(unassignedHandle, handleIndex);
 
-        actionsConsumer.accept(out -> out.writeByte(TC_CLASSDESC));
+        out.writeByte(TC_CLASSDESC);
         fieldActions = new ArrayList<>();
 
         @SuppressWarnings("unchecked")
@@ -234,7 +230,7 @@ public class DescriptorHierarchyBuilderImpl implements DescriptorHierarchyStart,
         String jvmTypeName = jvmTypeNameBuilder.append(elementJvmTypeName).toString();
 
         // Handle for type name string
-        // Cannot perform this in the field action Runnable below because then it might be executed too late
+        // Cannot perform this in the field action below because then it would be executed too late
         nextHandleIndex.getAndIncrement();
 
         fieldActions.add(out -> {
@@ -254,23 +250,15 @@ public class DescriptorHierarchyBuilderImpl implements DescriptorHierarchyStart,
 
     @Override
     public Object endDescriptor() {
-        int fieldsCount = fieldActions.size();
-        // Save values in local variables to ignore subsequent modifications
-        String descriptorName = this.descriptorName;
-        long uid = this.uid;
-        byte flags = this.flags;
-        actionsConsumer.accept(out -> {
-            out.writeUTF(descriptorName);
-            out.writeLong(uid);
-            out.writeByte(flags);
-            out.writeShort(fieldsCount);
-        });
-        fieldActions.forEach(actionsConsumer);
-        actionsConsumer.accept(out -> {
-            out.setBlockDataMode(true);
-            out.setBlockDataMode(false);
-            out.writeByte(TC_ENDBLOCKDATA);
-        });
+        out.writeUTF(descriptorName);
+        out.writeLong(uid);
+        out.writeByte(flags);
+        out.writeShort(fieldActions.size());
+        fieldActions.forEach(action -> action.accept(out));
+
+        out.setBlockDataMode(true);
+        out.setBlockDataMode(false);
+        out.writeByte(TC_ENDBLOCKDATA);
 
         fieldActions = null;
         return this;
@@ -279,19 +267,15 @@ public class DescriptorHierarchyBuilderImpl implements DescriptorHierarchyStart,
     @Override
     public Object endDescriptorHierarchyWithHandle(Handle handle) {
         int handleIndex = HandleAccess.INSTANCE.getObjectIndex(handle);
-        actionsConsumer.accept(out -> {
-            out.writeByte(TC_REFERENCE);
-            out.writeInt(baseWireHandle + handleIndex);
-        });
+        out.writeByte(TC_REFERENCE);
+        out.writeInt(baseWireHandle + handleIndex);
         return finishAndGetParent();
     }
 
     @Override
     public Object endDescriptorHierarchy() {
-        actionsConsumer.accept(out -> {
-            // Write final null at end of hierarchy
-            out.writeByte(TC_NULL);
-        });
+        // Write final null at end of hierarchy
+        out.writeByte(TC_NULL);
         return finishAndGetParent();
     }
 }
@@ -0,0 +1,119 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * Sink writing to a file channel, starting at the beginning of the file. Data is collected in a staging buffer
+ * of fixed size and written with positional writes once the buffer is full, so the amount of memory used does
+ * not depend on the size of the data. Data which has already been written to the file is patched with
+ * positional writes as well.
+ *
+ * <p>The file is never extended past the written data, so it only has to be truncated by {@link #discard()}
+ * if writing failed. The sink does not close the channel.
+ */
+class FileChannelSink extends OutputSink {
+    static final int DEFAULT_STAGING_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer staging;
+    /** File position at which the data of {@link #staging} starts */
+    private long stagingStart;
+
+    public FileChannelSink(FileChannel channel, int stagingSize) {
+        this.channel = Objects.requireNonNull(channel);
+        if (stagingSize <= 0) {
+            throw new IllegalArgumentException("Invalid staging size: " + stagingSize);
+        }
+        staging = ByteBuffer.allocate(stagingSize);
+        stagingStart = 0;
+    }
+
+    private void writeFully(ByteBuffer data, long position) {
+        try {
+            while (data.hasRemaining()) {
+                position += channel.write(data, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flushStaging() {
+        int stagedLength = staging.position();
+        staging.flip();
+        writeFully(staging, stagingStart);
+        staging.clear();
+        stagingStart += stagedLength;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len >= staging.capacity()) {
+            // Write large data directly instead of copying it to the staging buffer first
+            flushStaging();
+            writeFully(ByteBuffer.wrap(b, off, len), stagingStart);
+            stagingStart += len;
+            return;
+        }
+
+        if (len > staging.remaining()) {
+            flushStaging();
+        }
+        staging.put(b, off, len);
+    }
+
+    @Override
+    public boolean isPatchable() {
+        return true;
+    }
+
+    @Override
+    public void patch(long position, byte[] b, int off, int len) {
+        if (position < 0 || position + len > size()) {
+            throw new IllegalArgumentException("Invalid patch position " + position + " for length " + len);
+        }
+
+        // Data in front of the staging buffer has already been written to the file
+        if (position < stagingStart) {
+            int fileLength = (int) Math.min(len, stagingStart - position);
+            writeFully(ByteBuffer.wrap(b, off, fileLength), position);
+            position += fileLength;
+            off += fileLength;
+            len -= fileLength;
+        }
+
+        if (len > 0) {
+            staging.put((int) (position - stagingStart), b, off, len);
+        }
+    }
+
+    @Override
+    public void finish() {
+        flushStaging();
+    }
+
+    /**
+     * Discards all data written so far, truncating the file to size 0. This should be called if writing
+     * failed, to not leave incomplete data in the file.
+     */
+    public void discard() {
+        staging.clear();
+        stagingStart = 0;
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of bytes written to this sink.
+     */
+    public long size() {
+        return stagingStart + staging.position();
+    }
+}
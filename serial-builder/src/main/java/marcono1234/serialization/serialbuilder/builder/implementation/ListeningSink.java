@@ -0,0 +1,112 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Sink passing all data to a listener besides writing it to a delegate sink. The listener can for example update
+ * a {@link java.security.MessageDigest} or a {@link java.util.zip.Checksum}.
+ *
+ * <p>This sink is patchable if the delegate is. Because the listener must only see final data, a copy of the
+ * data which might still be patched is kept until it is {@linkplain #markFinal(long) marked as final}. Data which
+ * is already final when it is written is passed to the listener directly.
+ */
+class ListeningSink extends OutputSink {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final OutputSink delegate;
+    private final Consumer<? super ByteBuffer> listener;
+
+    /** Total number of bytes written to this sink */
+    private long written;
+    /** Stream position up to which the data is final */
+    private long finalEnd;
+    /** Copy of the written data which is not final yet, and has therefore not been passed to the listener */
+    private byte[] pending;
+    private int pendingLength;
+    /** Stream position of the first byte of {@link #pending} */
+    private long pendingStart;
+
+    public ListeningSink(OutputSink delegate, Consumer<? super ByteBuffer> listener) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.listener = Objects.requireNonNull(listener);
+        pending = EMPTY;
+    }
+
+    public OutputSink getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Resets this sink so that it can be used for new data, after the delegate has been reset.
+     */
+    public void reset() {
+        written = 0;
+        finalEnd = 0;
+        pendingLength = 0;
+        pendingStart = 0;
+    }
+
+    private void notifyListener(byte[] b, int off, int len) {
+        listener.accept(ByteBuffer.wrap(b, off, len).asReadOnlyBuffer());
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        // If there is pending data, `finalEnd` is in front of it, so nothing can be passed to the listener directly
+        int directLength = (int) Math.max(0, Math.min(len, finalEnd - written));
+        if (directLength > 0) {
+            notifyListener(b, off, directLength);
+        }
+        if (directLength < len) {
+            if (pendingLength == 0) {
+                pendingStart = written + directLength;
+            }
+            int pendingAdditional = len - directLength;
+            if (pendingAdditional > pending.length - pendingLength) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + pendingAdditional));
+            }
+            System.arraycopy(b, off + directLength, pending, pendingLength, pendingAdditional);
+            pendingLength += pendingAdditional;
+        }
+
+        delegate.write(b, off, len);
+        written += len;
+    }
+
+    @Override
+    public boolean isPatchable() {
+        return delegate.isPatchable();
+    }
+
+    @Override
+    public void patch(long position, byte[] b, int off, int len) {
+        if (pendingLength == 0 || position < pendingStart) {
+            throw new IllegalStateException("Data has already been marked as final");
+        }
+        delegate.patch(position, b, off, len);
+        System.arraycopy(b, off, pending, (int) (position - pendingStart), len);
+    }
+
+    @Override
+    public void markFinal(long position) {
+        delegate.markFinal(position);
+        finalEnd = Math.max(finalEnd, position);
+
+        int finalLength = (int) Math.min(pendingLength, Math.min(finalEnd, written) - pendingStart);
+        if (finalLength > 0) {
+            notifyListener(pending, 0, finalLength);
+            pendingLength -= finalLength;
+            System.arraycopy(pending, finalLength, pending, 0, pendingLength);
+            pendingStart += finalLength;
+        }
+    }
+
+    @Override
+    public void finish() {
+        markFinal(written);
+        delegate.finish();
+    }
+}
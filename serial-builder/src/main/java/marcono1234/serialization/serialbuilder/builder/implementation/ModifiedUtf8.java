@@ -0,0 +1,94 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+/**
+ * Encoder for the "modified UTF-8" format used by {@link java.io.DataOutput#writeUTF(String)} and by the
+ * serialization format for strings, see the {@link java.io.DataInput} documentation.
+ *
+ * <p>Encoding is split in two steps, first calculating the encoded length so that the caller can write the
+ * length prefix and make sure there is enough space, and then encoding the string directly into the target
+ * array. This avoids creating any temporary arrays.
+ */
+final class ModifiedUtf8 {
+    private ModifiedUtf8() {
+    }
+
+    /**
+     * Returns the number of bytes of the encoded string.
+     */
+    public static long encodedLength(String s) {
+        int length = s.length();
+        long encodedLength = length;
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            // Fast path for ASCII; does not include 0x0000 because that is encoded with 2 bytes
+            if (c >= 0x0001 && c <= 0x007F) {
+                continue;
+            }
+
+            // Covers 0x0000 || (0x0080 - 0x07FF)
+            if (c <= 0x07FF) {
+                encodedLength += 1;
+            }
+            // Covers 0x0800 - 0xFFFF
+            else {
+                encodedLength += 2;
+            }
+        }
+        return encodedLength;
+    }
+
+    /**
+     * Encodes the string into the array, starting at the given offset. The array must have enough space
+     * for the number of bytes returned by {@link #encodedLength(String)}.
+     *
+     * @return
+     *      the index after the last written byte
+     */
+    public static int encode(String s, byte[] dest, int offset) {
+        int length = s.length();
+        int i = 0;
+
+        // Fast path for ASCII
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == 0x0000 || c > 0x007F) {
+                break;
+            }
+            dest[offset++] = (byte) c;
+        }
+
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                dest[offset++] = (byte) c;
+            }
+            // Covers 0x0000 || (0x0080 - 0x07FF)
+            else if (c <= 0x07FF) {
+                dest[offset++] = (byte) (0b110_00000 | (c >> 6) & 0b11111);
+                dest[offset++] = (byte) (0b10_000000 | c & 0b111111);
+            }
+            // Covers 0x0800 - 0xFFFF
+            else {
+                dest[offset++] = (byte) (0b1110_0000 | (c >> 12) & 0b1111);
+                dest[offset++] = (byte) (0b10_000000 | (c >> 6) & 0b111111);
+                dest[offset++] = (byte) (0b10_000000 | c & 0b111111);
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Encodes the characters of the string from {@code start} (inclusive) to {@code end} (exclusive) into the
+     * array, starting at the given offset. All characters in that range must be ASCII characters other than
+     * 0x0000, which are encoded as a single byte; this is the case if {@link #encodedLength(String)} is equal
+     * to the string length.
+     */
+    @SuppressWarnings("deprecation")
+    public static void encodeAscii(String s, int start, int end, byte[] dest, int offset) {
+        // This String method discards the high byte of each char, which has no effect for ASCII characters.
+        // Because such strings are stored in compact form, it is a plain array copy instead of a loop
+        // over the chars, which is considerably faster for large strings.
+        s.getBytes(start, end, dest, offset);
+    }
+}
@@ -0,0 +1,680 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import marcono1234.serialization.serialbuilder.DataSizeLimitExceededException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+import static java.io.ObjectStreamConstants.TC_BLOCKDATA;
+import static java.io.ObjectStreamConstants.TC_BLOCKDATALONG;
+
+/**
+ * Growable byte buffer to which the serialization data is written. In addition to appending data, it supports
+ * reserving space for data which only becomes known later, such as the number of object array elements, and
+ * filling it in afterwards. Reservations have to be released in the reverse order in which they were made.
+ *
+ * <p>Final data is written to an {@link OutputSink} whenever the buffer runs out of space, and when the buffer is
+ * closed. If the sink is not patchable, all data in front of the first pending reservation is final. If the sink
+ * is patchable, all data except the current block data chunk is final, and reserved values are patched in the
+ * sink if they have already been written to it. Therefore the buffer itself stays small in that case.
+ *
+ * <p>Block data is split into chunks of a fixed maximum size, the same way {@link java.io.ObjectOutputStream}
+ * does it. Once a chunk is full its header is written, so when writing to a sink only the data of the current
+ * chunk has to be kept in memory, regardless of the total size of the block data.
+ *
+ * <p>The total size of the data can be limited. Writes which would exceed the limit throw a
+ * {@link DataSizeLimitExceededException} before any of their data is buffered or written to the sink.
+ *
+ * <p>All methods of this class wrap thrown checked exceptions in unchecked ones.
+ */
+class OutputBuffer extends OutputStream {
+    private static final int INITIAL_CAPACITY = 8192;
+    /** Maximum array size; some VMs reserve header words in an array */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    /** Maximum capacity which is kept when the buffer is {@linkplain #reset() reset} */
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    // Serialization data uses big endian byte order
+    private static final VarHandle SHORT_VIEW = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle CHAR_VIEW = MethodHandles.byteArrayViewVarHandle(char[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_VIEW = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /** Sink for final data */
+    private final OutputSink sink;
+    /** Maximum size of the data of a block data chunk */
+    private final int blockDataChunkSize;
+    /** Maximum total size of the data */
+    private final long maxSize;
+    private byte[] buf;
+    /** Number of bytes in {@link #buf} */
+    private int count;
+    /** Number of bytes which have already been written to the sink, and are not part of {@link #buf} anymore */
+    private long flushedCount;
+
+    /** Stream positions of the pending reservations, in the order in which they were made */
+    private long[] reservations;
+    private int reservationsCount;
+    /** Stream position where the data of the current block data chunk starts; -1 if block data is not active */
+    private long blockDataChunkStart;
+    /** Temporary array for patching reserved values which have already been written to the sink */
+    private final byte[] patchBuffer;
+    private boolean isClosed;
+
+    /**
+     * @param sink
+     *      sink for final data
+     * @param blockDataChunkSize
+     *      maximum size of the data of a block data chunk
+     * @param maxSize
+     *      maximum total size of the data; {@link Long#MAX_VALUE} for no limit
+     */
+    public OutputBuffer(OutputSink sink, int blockDataChunkSize, long maxSize) {
+        if (blockDataChunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid block data chunk size: " + blockDataChunkSize);
+        }
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Invalid max size: " + maxSize);
+        }
+        this.sink = Objects.requireNonNull(sink);
+        this.blockDataChunkSize = blockDataChunkSize;
+        this.maxSize = maxSize;
+        buf = new byte[INITIAL_CAPACITY];
+        count = 0;
+        flushedCount = 0;
+        reservations = new long[8];
+        reservationsCount = 0;
+        blockDataChunkStart = -1;
+        patchBuffer = new byte[Long.BYTES];
+        isClosed = false;
+    }
+
+    /**
+     * Resets the buffer so that it can be used again for writing new data to the sink, after the sink has
+     * been reset as well. The buffer arrays are kept, unless they have grown very large.
+     */
+    public void reset() {
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new byte[INITIAL_CAPACITY];
+        }
+        count = 0;
+        flushedCount = 0;
+        reservationsCount = 0;
+        blockDataChunkStart = -1;
+        isClosed = false;
+    }
+
+    /**
+     * Returns the current position in the stream, that is, the total number of bytes written so far.
+     */
+    public long position() {
+        return flushedCount + count;
+    }
+
+    /**
+     * Makes sure that data of the given length can be written, checking the size limit and growing the
+     * buffer if necessary.
+     */
+    private void ensureCapacity(int additional) {
+        checkSizeLimit(additional);
+        ensureBufferCapacity(additional);
+    }
+
+    /**
+     * Same as {@link #ensureCapacity(int)}, except that the size limit is not checked. Used for space which
+     * is only reserved and might not be part of the final data, and for data whose size has already been checked.
+     */
+    private void ensureBufferCapacity(int additional) {
+        if (additional > buf.length - count) {
+            grow(additional);
+        }
+    }
+
+    /**
+     * Checks that writing data of the given length does not exceed the size limit.
+     *
+     * @throws DataSizeLimitExceededException
+     *      if the size limit would be exceeded
+     */
+    private void checkSizeLimit(long additional) {
+        // Always has to compute the final size; when block data is split into multiple chunks the final size
+        // can be larger than the current size, because each chunk needs its own header
+        if (finalSize(position() + additional) > maxSize) {
+            throw new DataSizeLimitExceededException(maxSize);
+        }
+    }
+
+    private int blockDataHeaderSize(long dataLength) {
+        if (dataLength == 0) {
+            // Empty block data is removed
+            return 0;
+        }
+        return dataLength <= 255 ? SHORT_BLOCK_DATA_HEADER_SIZE : MAX_BLOCK_DATA_HEADER_SIZE;
+    }
+
+    /**
+     * Returns the size the data would have once the current block data is finished, if it currently had the
+     * given size. Only differs from the given size if block data is active, because the space reserved for
+     * the block data header might be larger than the header actually written, and because the data might have
+     * to be split into multiple chunks.
+     */
+    private long finalSize(long size) {
+        if (blockDataChunkStart < 0) {
+            return size;
+        }
+        long chunkDataLength = size - blockDataChunkStart;
+        long fullChunks = chunkDataLength / blockDataChunkSize;
+        long remainingLength = chunkDataLength % blockDataChunkSize;
+        return size - MAX_BLOCK_DATA_HEADER_SIZE
+            + fullChunks * blockDataHeaderSize(blockDataChunkSize)
+            + blockDataHeaderSize(remainingLength);
+    }
+
+    private void grow(int additional) {
+        writeFinalDataToSink();
+        if (additional <= buf.length - count) {
+            return;
+        }
+
+        int minCapacity = count + additional;
+        // Check for overflow
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required buffer size is too large");
+        }
+        int newCapacity = buf.length <= MAX_CAPACITY / 2 ? Math.max(buf.length * 2, minCapacity) : MAX_CAPACITY;
+        buf = Arrays.copyOf(buf, newCapacity);
+    }
+
+    /**
+     * Returns the stream position up to which all data is final and can be written to the sink.
+     */
+    private long finalDataEnd() {
+        if (sink.isPatchable()) {
+            // Only the current block data chunk has to be kept because the length of its header might still change
+            return blockDataChunkStart >= 0 ? blockDataChunkStart - MAX_BLOCK_DATA_HEADER_SIZE : position();
+        } else {
+            return unpatchedDataEnd();
+        }
+    }
+
+    /**
+     * Returns the stream position up to which the data will not change anymore, that is, the position of
+     * the first pending reservation. Unlike {@link #finalDataEnd()} this does not depend on the sink.
+     */
+    private long unpatchedDataEnd() {
+        return reservationsCount > 0 ? reservations[0] : position();
+    }
+
+    /**
+     * Writes all final data to the sink, and removes it from the buffer.
+     */
+    private void writeFinalDataToSink() {
+        long finalEnd = finalDataEnd();
+        int finalCount = (int) (finalEnd - flushedCount);
+        if (finalCount > 0) {
+            sink.markFinal(unpatchedDataEnd());
+            sink.write(buf, 0, finalCount);
+            System.arraycopy(buf, finalCount, buf, 0, count - finalCount);
+            count -= finalCount;
+            flushedCount = finalEnd;
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(1);
+        buf[count++] = (byte) b;
+        if (blockDataChunkStart >= 0) {
+            splitFullBlockDataChunks();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        checkSizeLimit(len);
+
+        if (blockDataChunkStart >= 0) {
+            // Write the data in pieces which fit into the current block data chunk, to avoid having to move
+            // large amounts of data when splitting the chunks
+            while (len > 0) {
+                int pieceLength = (int) Math.min(len, blockDataChunkStart + blockDataChunkSize - position());
+                writeUnchunked(b, off, pieceLength);
+                off += pieceLength;
+                len -= pieceLength;
+                splitFullBlockDataChunks();
+            }
+        } else {
+            writeUnchunked(b, off, len);
+        }
+    }
+
+    private void writeUnchunked(byte[] b, int off, int len) {
+        // If all data is final, write large arrays directly to the sink instead of copying them into the buffer
+        if (len >= buf.length && finalDataEnd() == position()) {
+            writeFinalDataToSink();
+            // Data is final unless there is a pending reservation in front of it
+            sink.markFinal(reservationsCount > 0 ? reservations[0] : position() + len);
+            sink.write(b, off, len);
+            flushedCount += len;
+            return;
+        }
+
+        ensureBufferCapacity(len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * Makes sure that there is space for at least one array element and returns the number of elements which
+     * can be written to the buffer at once, at most {@code remainingElements}.
+     */
+    private int ensureCapacityForElements(int remainingElements, int elementSize) {
+        long remainingBytes = (long) remainingElements * elementSize;
+        // Check the limit for all remaining elements to fail fast for large arrays
+        checkSizeLimit(remainingBytes);
+        // Write large arrays in multiple pieces to avoid growing the buffer unnecessarily
+        ensureBufferCapacity((int) Math.min(remainingBytes, INITIAL_CAPACITY));
+        return Math.min(remainingElements, (buf.length - count) / elementSize);
+    }
+
+    // Bulk methods for writing the elements of primitive arrays, without any length prefix
+    // Note: Local variables are used for `buf` and `count` in the loops to help the JIT compiler
+
+    public void writeArrayElements(boolean[] array) {
+        int index = 0;
+        while (index < array.length) {
+            int end = index + ensureCapacityForElements(array.length - index, 1);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                buf[count++] = (byte) (array[index] ? 1 : 0);
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeArrayElements(char[] array) {
+        int index = 0;
+        while (index < array.length) {
+            int end = index + ensureCapacityForElements(array.length - index, Character.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                CHAR_VIEW.set(buf, count, array[index]);
+                count += Character.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeArrayElements(short[] array) {
+        int index = 0;
+        while (index < array.length) {
+            int end = index + ensureCapacityForElements(array.length - index, Short.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                SHORT_VIEW.set(buf, count, array[index]);
+                count += Short.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeArrayElements(int[] array) {
+        int index = 0;
+        while (index < array.length) {
+            int end = index + ensureCapacityForElements(array.length - index, Integer.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                INT_VIEW.set(buf, count, array[index]);
+                count += Integer.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeArrayElements(long[] array) {
+        int index = 0;
+        while (index < array.length) {
+            int end = index + ensureCapacityForElements(array.length - index, Long.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                LONG_VIEW.set(buf, count, array[index]);
+                count += Long.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeArrayElements(float[] array) {
+        int index = 0;
+        while (index < array.length) {
+            int end = index + ensureCapacityForElements(array.length - index, Float.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                // Uses floatToIntBits instead of a float VarHandle (which uses floatToRawIntBits) to
+                // collapse NaN values, matching the behavior of DataOutputStream and ObjectOutputStream
+                INT_VIEW.set(buf, count, Float.floatToIntBits(array[index]));
+                count += Float.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeArrayElements(double[] array) {
+        int index = 0;
+        while (index < array.length) {
+            int end = index + ensureCapacityForElements(array.length - index, Double.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                // Uses doubleToLongBits instead of a double VarHandle (which uses doubleToRawLongBits) to
+                // collapse NaN values, matching the behavior of DataOutputStream and ObjectOutputStream
+                LONG_VIEW.set(buf, count, Double.doubleToLongBits(array[index]));
+                count += Double.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    // Bulk methods for writing array elements which are computed on the fly, so that the array does not have to
+    // exist in memory; the element functions must not use this buffer
+
+    public void writeIntElementsFrom(int length, IntUnaryOperator elementFunction) {
+        int index = 0;
+        while (index < length) {
+            int end = index + ensureCapacityForElements(length - index, Integer.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                INT_VIEW.set(buf, count, elementFunction.applyAsInt(index));
+                count += Integer.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeLongElementsFrom(int length, IntToLongFunction elementFunction) {
+        int index = 0;
+        while (index < length) {
+            int end = index + ensureCapacityForElements(length - index, Long.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                LONG_VIEW.set(buf, count, elementFunction.applyAsLong(index));
+                count += Long.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    public void writeDoubleElementsFrom(int length, IntToDoubleFunction elementFunction) {
+        int index = 0;
+        while (index < length) {
+            int end = index + ensureCapacityForElements(length - index, Double.BYTES);
+            byte[] buf = this.buf;
+            int count = this.count;
+            for (; index < end; index++) {
+                // See writeArrayElements(double[]) for why doubleToLongBits is used
+                LONG_VIEW.set(buf, count, Double.doubleToLongBits(elementFunction.applyAsDouble(index)));
+                count += Double.BYTES;
+            }
+            this.count = count;
+        }
+    }
+
+    /**
+     * Reads exactly {@code length} bytes from the channel directly into the buffer. The channel must be blocking.
+     *
+     * @throws UncheckedIOException
+     *      if reading fails, or if the channel ends prematurely
+     */
+    public void writeArrayElements(long length, ReadableByteChannel channel) {
+        // Check the limit for all bytes to fail fast for large arrays
+        checkSizeLimit(length);
+        long remaining = length;
+        while (remaining > 0) {
+            // Read large data in multiple pieces to avoid growing the buffer unnecessarily
+            ensureBufferCapacity((int) Math.min(remaining, INITIAL_CAPACITY));
+            ByteBuffer target = ByteBuffer.wrap(buf, count, (int) Math.min(remaining, buf.length - count));
+            int readCount;
+            try {
+                readCount = channel.read(target);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (readCount < 0) {
+                throw new UncheckedIOException(new EOFException("Channel ended after " + (length - remaining) + " of " + length + " bytes"));
+            }
+            count += readCount;
+            remaining -= readCount;
+        }
+    }
+
+    /**
+     * Writes a string in modified UTF-8 encoding, without any length prefix.
+     *
+     * @param encodedLength
+     *      length of the encoded string, as returned by {@link ModifiedUtf8#encodedLength(String)}
+     */
+    public void writeModifiedUtf8(String s, long encodedLength) {
+        checkSizeLimit(encodedLength);
+
+        int length = s.length();
+        if (encodedLength == length) {
+            // Only ASCII characters; write in pieces to avoid growing the buffer for large strings
+            int index = 0;
+            while (index < length) {
+                ensureBufferCapacity(Math.min(length - index, INITIAL_CAPACITY));
+                int end = index + Math.min(length - index, buf.length - count);
+                ModifiedUtf8.encodeAscii(s, index, end, buf, count);
+                count += end - index;
+                index = end;
+                if (blockDataChunkStart >= 0) {
+                    splitFullBlockDataChunks();
+                }
+            }
+            return;
+        }
+
+        if (encodedLength > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Encoded string is too large");
+        }
+        ensureBufferCapacity((int) encodedLength);
+        count = ModifiedUtf8.encode(s, buf, count);
+        if (blockDataChunkStart >= 0) {
+            splitFullBlockDataChunks();
+        }
+    }
+
+    public void writeShort(int v) {
+        ensureCapacity(Short.BYTES);
+        SHORT_VIEW.set(buf, count, (short) v);
+        count += Short.BYTES;
+        if (blockDataChunkStart >= 0) {
+            splitFullBlockDataChunks();
+        }
+    }
+
+    public void writeInt(int v) {
+        ensureCapacity(Integer.BYTES);
+        INT_VIEW.set(buf, count, v);
+        count += Integer.BYTES;
+        if (blockDataChunkStart >= 0) {
+            splitFullBlockDataChunks();
+        }
+    }
+
+    public void writeLong(long v) {
+        ensureCapacity(Long.BYTES);
+        LONG_VIEW.set(buf, count, v);
+        count += Long.BYTES;
+        if (blockDataChunkStart >= 0) {
+            splitFullBlockDataChunks();
+        }
+    }
+
+    // Reservation methods
+
+    /**
+     * Reserves space of the given length at the current position, and returns that position.
+     * Does not check the size limit.
+     */
+    private long reserve(int length) {
+        ensureBufferCapacity(length);
+        long position = position();
+        pushReservation(position);
+        count += length;
+        return position;
+    }
+
+    private void pushReservation(long position) {
+        if (reservationsCount == reservations.length) {
+            reservations = Arrays.copyOf(reservations, reservations.length * 2);
+        }
+        reservations[reservationsCount++] = position;
+    }
+
+    /**
+     * Releases the last pending reservation, and returns the stream position where the reserved space starts.
+     */
+    private long releaseReservation() {
+        if (reservationsCount == 0) {
+            throw new IllegalStateException("No pending reservation");
+        }
+        return reservations[--reservationsCount];
+    }
+
+    /**
+     * Reserves 4 bytes for an {@code int} value which is written later using {@link #writeReservedInt(int)}.
+     */
+    public void reserveInt() {
+        checkSizeLimit(Integer.BYTES);
+        reserve(Integer.BYTES);
+    }
+
+    /**
+     * Writes an {@code int} value to the space reserved by the last pending {@link #reserveInt()} call,
+     * and releases that reservation.
+     */
+    public void writeReservedInt(int v) {
+        long position = releaseReservation();
+        if (position >= flushedCount) {
+            INT_VIEW.set(buf, (int) (position - flushedCount), v);
+        } else {
+            // Reserved space has already been (partially) written to the sink
+            INT_VIEW.set(patchBuffer, 0, v);
+            int sinkLength = (int) Math.min(Integer.BYTES, flushedCount - position);
+            sink.patch(position, patchBuffer, 0, sinkLength);
+            System.arraycopy(patchBuffer, sinkLength, buf, 0, Integer.BYTES - sinkLength);
+            sink.markFinal(unpatchedDataEnd());
+        }
+    }
+
+    /** Size of the header for {@link java.io.ObjectStreamConstants#TC_BLOCKDATALONG} */
+    private static final int MAX_BLOCK_DATA_HEADER_SIZE = 1 + Integer.BYTES;
+    /** Size of the header for {@link java.io.ObjectStreamConstants#TC_BLOCKDATA} */
+    private static final int SHORT_BLOCK_DATA_HEADER_SIZE = 1 + 1;
+
+    /**
+     * Begins block data, reserving space for the block data header. All data written afterwards is part of
+     * the block data until {@link #endBlockData()} is called.
+     */
+    public void beginBlockData() {
+        // Size limit is not checked for the header because it is removed if the block data is empty
+        blockDataChunkStart = reserve(MAX_BLOCK_DATA_HEADER_SIZE) + MAX_BLOCK_DATA_HEADER_SIZE;
+    }
+
+    /**
+     * Writes the header for the block data at the given index, moving the data if the header is
+     * shorter than the reserved space.
+     *
+     * @return
+     *      the index after the end of the block data
+     */
+    private int writeBlockDataHeader(int headerIndex, int length) {
+        int dataIndex = headerIndex + MAX_BLOCK_DATA_HEADER_SIZE;
+
+        if (length <= 255) {
+            buf[headerIndex] = TC_BLOCKDATA;
+            buf[headerIndex + 1] = (byte) length;
+            // Move data to directly follow the shorter header; data is at most 255 bytes so this is cheap
+            int newDataIndex = headerIndex + SHORT_BLOCK_DATA_HEADER_SIZE;
+            System.arraycopy(buf, dataIndex, buf, newDataIndex, length);
+            return newDataIndex + length;
+        } else {
+            buf[headerIndex] = TC_BLOCKDATALONG;
+            INT_VIEW.set(buf, headerIndex + 1, length);
+            return dataIndex + length;
+        }
+    }
+
+    /**
+     * Finishes all full block data chunks, and begins a new chunk for the remaining data.
+     */
+    private void splitFullBlockDataChunks() {
+        while (position() - blockDataChunkStart >= blockDataChunkSize) {
+            // Make sure there is space for the header of the next chunk; has to be done while the reservation
+            // for the current chunk is still pending because this might write final data to the sink
+            ensureBufferCapacity(MAX_BLOCK_DATA_HEADER_SIZE);
+
+            // Block data header is never written to the sink before it is complete, see finalDataEnd()
+            int headerIndex = (int) (releaseReservation() - flushedCount);
+            int overflowIndex = headerIndex + MAX_BLOCK_DATA_HEADER_SIZE + blockDataChunkSize;
+            int overflowLength = count - overflowIndex;
+            int chunkEnd = writeBlockDataHeader(headerIndex, blockDataChunkSize);
+
+            // Move the data which does not fit into the chunk behind the header of the next chunk
+            int nextDataIndex = chunkEnd + MAX_BLOCK_DATA_HEADER_SIZE;
+            System.arraycopy(buf, overflowIndex, buf, nextDataIndex, overflowLength);
+            count = nextDataIndex + overflowLength;
+            pushReservation(flushedCount + chunkEnd);
+            blockDataChunkStart = flushedCount + nextDataIndex;
+        }
+    }
+
+    /**
+     * Ends the block data started by the last pending {@link #beginBlockData()} call, and writes its header.
+     * Empty block data is removed completely.
+     */
+    public void endBlockData() {
+        int headerIndex = (int) (releaseReservation() - flushedCount);
+        int length = count - (headerIndex + MAX_BLOCK_DATA_HEADER_SIZE);
+        count = length == 0 ? headerIndex : writeBlockDataHeader(headerIndex, length);
+        blockDataChunkStart = -1;
+    }
+
+    /**
+     * Writes all remaining data to the sink and {@linkplain OutputSink#finish() finishes} it.
+     */
+    @Override
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+
+        if (reservationsCount != 0) {
+            throw new IllegalStateException("Buffer has pending reservations");
+        }
+        writeFinalDataToSink();
+        sink.finish();
+    }
+}
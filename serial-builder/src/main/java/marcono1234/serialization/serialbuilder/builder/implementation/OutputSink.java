@@ -0,0 +1,49 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+/**
+ * Destination to which an {@link OutputBuffer} writes final serialization data.
+ *
+ * <p>Sinks which are {@linkplain #isPatchable() patchable} support overwriting data which has already been
+ * written. For them the {@code OutputBuffer} does not have to keep data in memory until reserved values,
+ * such as the number of object array elements, are known.
+ *
+ * <p>All methods of this class wrap thrown checked exceptions in unchecked ones.
+ */
+abstract class OutputSink {
+    /**
+     * Writes data to the end of this sink.
+     */
+    public abstract void write(byte[] b, int off, int len);
+
+    /**
+     * Returns whether {@link #patch(long, byte[], int, int)} is supported.
+     */
+    public boolean isPatchable() {
+        return false;
+    }
+
+    /**
+     * Overwrites data which has already been written to this sink.
+     *
+     * @param position
+     *      stream position of the first byte to overwrite
+     */
+    public void patch(long position, byte[] b, int off, int len) {
+        throw new UnsupportedOperationException("Patching is not supported");
+    }
+
+    /**
+     * Called with the stream position up to which the data of this sink is final, that is, will not be
+     * {@linkplain #patch(long, byte[], int, int) patched} anymore. The position might be larger than the size
+     * of the data written so far; the data up to that position is then final as soon as it is written.
+     * The position never decreases.
+     */
+    public void markFinal(long position) {
+    }
+
+    /**
+     * Called once all data has been written to this sink.
+     */
+    public void finish() {
+    }
+}
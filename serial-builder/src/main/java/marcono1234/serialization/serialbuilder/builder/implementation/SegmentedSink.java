@@ -0,0 +1,297 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import marcono1234.serialization.serialbuilder.SerialData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Sink keeping all data in memory, stored in a list of segments. When more space is needed a new segment is
+ * added, so growing never copies existing data, and the total size is not limited by the maximum array size.
+ *
+ * <p>All segments except the last one are completely filled. Segments grow in size together with the total
+ * data size, up to {@link #MAX_SEGMENT_SIZE}.
+ */
+class SegmentedSink extends OutputSink {
+    private static final int MIN_SEGMENT_SIZE = 256;
+    private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    /** Maximum array size; some VMs reserve header words in an array */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    /** Maximum total size of the segments which are kept when the sink is {@linkplain #reset() reset} */
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    /**
+     * Whether the segments are kept for reuse when the sink is {@linkplain #reset() reset}. The data is then
+     * always copied by {@link #toByteArray()}, so that no segment is shared with the caller.
+     */
+    private final boolean isReusable;
+    private final List<byte[]> segments;
+    /** Segments of previous data which are used again before new ones are allocated */
+    private final Deque<byte[]> spareSegments;
+    /** Whether the segments have been passed to the caller, and must therefore not be reused */
+    private boolean isShared;
+    /** Stream positions at which the segments start */
+    private long[] segmentStarts;
+    /** Number of bytes in the last segment */
+    private int lastSegmentLength;
+    private long size;
+
+    public SegmentedSink() {
+        this(false);
+    }
+
+    /**
+     * @param isReusable
+     *      whether the segments are kept for reuse when the sink is {@linkplain #reset() reset}
+     */
+    public SegmentedSink(boolean isReusable) {
+        this.isReusable = isReusable;
+        segments = new ArrayList<>();
+        spareSegments = new ArrayDeque<>();
+        isShared = false;
+        segmentStarts = new long[16];
+        lastSegmentLength = 0;
+        size = 0;
+    }
+
+    /**
+     * Removes all data so that the sink can be used again. Data previously obtained from this sink, for example
+     * using {@link #toByteArray()}, is not affected. If the sink is reusable, the segments are kept and filled
+     * again with the new data, unless they have grown very large.
+     */
+    public void reset() {
+        if (isReusable && !isShared) {
+            long retainedSize = 0;
+            for (byte[] segment : spareSegments) {
+                retainedSize += segment.length;
+            }
+            for (byte[] segment : segments) {
+                retainedSize += segment.length;
+                if (retainedSize > MAX_RETAINED_SIZE) {
+                    break;
+                }
+                spareSegments.addLast(segment);
+            }
+        }
+        segments.clear();
+        isShared = false;
+        lastSegmentLength = 0;
+        size = 0;
+    }
+
+    private void addSegment(int segmentSize) {
+        int segmentIndex = segments.size();
+        if (segmentIndex == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, segmentIndex * 2);
+        }
+        segmentStarts[segmentIndex] = size;
+        byte[] spareSegment = spareSegments.pollFirst();
+        segments.add(spareSegment != null ? spareSegment : new byte[segmentSize]);
+        lastSegmentLength = 0;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            byte[] lastSegment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (lastSegment == null || lastSegmentLength == lastSegment.length) {
+                int segmentSize;
+                if (segments.isEmpty() && !isReusable) {
+                    // For the first segment use the exact length; if all data is written at once, the segment
+                    // can be used as result without copying, see toByteArray()
+                    segmentSize = len;
+                } else {
+                    // Grow segment size together with total size to keep number of segments low
+                    segmentSize = (int) Math.max(Math.min(len, MAX_SEGMENT_SIZE), Math.max(MIN_SEGMENT_SIZE, Math.min(size, MAX_SEGMENT_SIZE)));
+                }
+                addSegment(segmentSize);
+                continue;
+            }
+
+            int copyLength = Math.min(len, lastSegment.length - lastSegmentLength);
+            System.arraycopy(b, off, lastSegment, lastSegmentLength, copyLength);
+            lastSegmentLength += copyLength;
+            size += copyLength;
+            off += copyLength;
+            len -= copyLength;
+        }
+    }
+
+    @Override
+    public boolean isPatchable() {
+        return true;
+    }
+
+    @Override
+    public void patch(long position, byte[] b, int off, int len) {
+        if (position < 0 || position + len > size) {
+            throw new IllegalArgumentException("Invalid patch position " + position + " for length " + len);
+        }
+
+        int segmentIndex = Arrays.binarySearch(segmentStarts, 0, segments.size(), position);
+        // If not found, binarySearch returns (-(insertion point) - 1); segment before insertion point contains position
+        if (segmentIndex < 0) {
+            segmentIndex = -segmentIndex - 2;
+        }
+
+        while (len > 0) {
+            byte[] segment = segments.get(segmentIndex);
+            int segmentOffset = (int) (position - segmentStarts[segmentIndex]);
+            int copyLength = Math.min(len, segment.length - segmentOffset);
+            System.arraycopy(b, off, segment, segmentOffset, copyLength);
+            position += copyLength;
+            off += copyLength;
+            len -= copyLength;
+            segmentIndex++;
+        }
+    }
+
+    /**
+     * Returns all data as {@code byte[]}. Must only be called once all data has been written, and the sink
+     * must not be used anymore afterwards because the returned array might be one of the segments.
+     */
+    public byte[] toByteArray() {
+        if (!isReusable && segments.size() == 1 && lastSegmentLength == segments.get(0).length) {
+            // Data fits exactly in the single segment; avoid copying it
+            isShared = true;
+            return segments.get(0);
+        }
+        return copyToByteArray(segments, lastSegmentLength, size);
+    }
+
+    private static byte[] copyToByteArray(List<byte[]> segments, int lastSegmentLength, long size) {
+        if (size > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Data is too large for a byte[]: " + size + " bytes");
+        }
+
+        byte[] result = new byte[(int) size];
+        int resultOffset = 0;
+        int lastSegmentIndex = segments.size() - 1;
+        for (int i = 0; i <= lastSegmentIndex; i++) {
+            byte[] segment = segments.get(i);
+            int length = i == lastSegmentIndex ? lastSegmentLength : segment.length;
+            System.arraycopy(segment, 0, result, resultOffset, length);
+            resultOffset += length;
+        }
+        return result;
+    }
+
+    /**
+     * Returns all data as {@link SerialData}. Must only be called once all data has been written, and the sink
+     * must not be used anymore afterwards because the segments are not copied.
+     */
+    public SerialData toSerialData() {
+        isShared = true;
+        return new SegmentedSerialData(List.copyOf(segments), lastSegmentLength, size);
+    }
+
+    private static class SegmentedSerialData implements SerialData {
+        private final List<byte[]> segments;
+        private final int lastSegmentLength;
+        private final long size;
+
+        private SegmentedSerialData(List<byte[]> segments, int lastSegmentLength, long size) {
+            this.segments = segments;
+            this.lastSegmentLength = lastSegmentLength;
+            this.size = size;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        private ByteBuffer[] createByteBuffers() {
+            ByteBuffer[] buffers = new ByteBuffer[segments.size()];
+            int lastSegmentIndex = buffers.length - 1;
+            for (int i = 0; i <= lastSegmentIndex; i++) {
+                byte[] segment = segments.get(i);
+                int length = i == lastSegmentIndex ? lastSegmentLength : segment.length;
+                buffers[i] = ByteBuffer.wrap(segment, 0, length).asReadOnlyBuffer();
+            }
+            return buffers;
+        }
+
+        @Override
+        public List<ByteBuffer> asByteBuffers() {
+            return List.of(createByteBuffers());
+        }
+
+        @Override
+        public ReadableByteChannel newChannel() {
+            ByteBuffer[] buffers = createByteBuffers();
+
+            return new ReadableByteChannel() {
+                private int bufferIndex = 0;
+                private boolean isOpen = true;
+
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    if (!isOpen) {
+                        throw new ClosedChannelException();
+                    }
+
+                    int readCount = 0;
+                    while (dst.hasRemaining() && bufferIndex < buffers.length) {
+                        ByteBuffer buffer = buffers[bufferIndex];
+                        if (!buffer.hasRemaining()) {
+                            bufferIndex++;
+                            continue;
+                        }
+
+                        int length = Math.min(dst.remaining(), buffer.remaining());
+                        dst.put(buffer.slice(buffer.position(), length));
+                        buffer.position(buffer.position() + length);
+                        readCount += length;
+                    }
+
+                    if (readCount == 0 && bufferIndex >= buffers.length) {
+                        return -1;
+                    }
+                    return readCount;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return isOpen;
+                }
+
+                @Override
+                public void close() {
+                    isOpen = false;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(GatheringByteChannel channel) {
+            ByteBuffer[] buffers = createByteBuffers();
+            int offset = 0;
+            try {
+                while (offset < buffers.length) {
+                    channel.write(buffers, offset, buffers.length - offset);
+                    // Skip all buffers which have been written completely
+                    while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                        offset++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return copyToByteArray(segments, lastSegmentLength, size);
+        }
+    }
+}
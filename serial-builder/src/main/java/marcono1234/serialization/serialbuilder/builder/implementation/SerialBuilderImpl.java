@@ -1,6 +1,7 @@
 package marcono1234.serialization.serialbuilder.builder.implementation;
 
 import marcono1234.serialization.serialbuilder.SerialBuilder;
+import marcono1234.serialization.serialbuilder.SerialData;
 import marcono1234.serialization.serialbuilder.builder.api.Enclosing;
 import marcono1234.serialization.serialbuilder.builder.api.Handle;
 import marcono1234.serialization.serialbuilder.builder.api.ObjectBuildingDataOutput;
@@ -25,20 +26,32 @@ import marcono1234.serialization.serialbuilder.builder.api.object.serializable.S
 import marcono1234.serialization.serialbuilder.builder.api.object.serializable.SlotWriteObjectMethodData;
 import marcono1234.serialization.serialbuilder.builder.api.object.serializable.SlotsStart;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Objects;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static java.io.ObjectStreamConstants.STREAM_MAGIC;
 import static java.io.ObjectStreamConstants.STREAM_VERSION;
@@ -66,9 +79,19 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
      * Whether this builder is building a single object, or potentially multiple objects; see
      * {@link #writeSerializationDataWith(ThrowingConsumer)}.
      */
-    private final boolean isBuildingSingleObject;
-    private final ByteArrayOutputStream binaryOut;
+    private boolean isBuildingSingleObject;
+    /**
+     * Sink receiving the final serialization data, for example a {@link SegmentedSink} keeping the data
+     * in memory or a {@link StreamSink} writing the data to a stream provided by the user.
+     */
+    private final OutputSink sink;
+    /**
+     * Buffer collecting the serialization data until it is final and can be written to the {@link #sink}.
+     */
+    private final OutputBuffer binaryOut;
     private final UncheckedBlockDataOutputStream out;
+    /** Context this builder belongs to, and which is released once a single object build finishes; {@code null} if none */
+    private final BuilderContext context;
     private final AtomicInteger nextHandleIndex = new AtomicInteger(0);
 
     /**
@@ -77,75 +100,164 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
     private int nestingDepth = 0;
 
     /**
-     * Queue for actions to perform after that data of an object has been written. Objects push one action which
-     * they then later pop again and execute.
+     * Stack of the block data modes which were active when the objects currently being written were started, and
+     * which are restored once the objects have been finished. Objects push their mode when they are started and
+     * pop it again when they are finished.
      *
-     * <p>A queue is used to support nested objects.
+     * <p>A stack is used to support nested objects.
      */
-    private final Deque<Runnable> pendingPostObjectActions = new LinkedList<>();
+    private boolean[] outerBlockDataModes = new boolean[8];
+    private int outerBlockDataModesSize = 0;
 
     /**
-     * Used to collect actions when the number of actions has to be persisted beforehand, e.g. when collection the
-     * array elements.
-     *
-     * <p>A queue is used to support nested objects.
+     * Deactivates block data mode for writing an object, and remembers the previous mode so that it can be
+     * restored by {@link #restoreOuterBlockDataMode()} once the object is finished.
+     */
+    private void beginObjectBlockDataMode() {
+        boolean oldMode = out.setBlockDataMode(false);
+        if (outerBlockDataModesSize == outerBlockDataModes.length) {
+            outerBlockDataModes = Arrays.copyOf(outerBlockDataModes, outerBlockDataModesSize * 2);
+        }
+        outerBlockDataModes[outerBlockDataModesSize++] = oldMode;
+    }
+
+    private void restoreOuterBlockDataMode() {
+        out.setBlockDataMode(outerBlockDataModes[--outerBlockDataModesSize]);
+    }
+
+    /**
+     * Maximum size of block data chunks; same as the size used by {@link java.io.ObjectOutputStream}.
+     * Chunking is not required by the serialization protocol, but it avoids having to keep large amounts of
+     * block data in memory until its length is known, and it produces the same output as {@code ObjectOutputStream}.
      */
-    private final Deque<List<Runnable>> pendingObjectsActions = new LinkedList<>();
+    private static final int BLOCK_DATA_CHUNK_SIZE = 1024;
+    /** Maximum array size; some VMs reserve header words in an array */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
-    private SerialBuilderImpl(boolean isBuildingSingleObject) {
+    private SerialBuilderImpl(boolean isBuildingSingleObject, OutputSink sink, BuilderOptions options, BuilderContext context) {
         this.isBuildingSingleObject = isBuildingSingleObject;
         protocolVersion = ProtocolVersion.V2;
-        binaryOut = new ByteArrayOutputStream();
+        this.sink = sink;
+        binaryOut = new OutputBuffer(sink, BLOCK_DATA_CHUNK_SIZE, options.maxSize());
         out = new UncheckedBlockDataOutputStream(binaryOut);
+        checkUsage = options.checkUsage();
+        this.context = context;
+
+        writeStreamHeader();
+    }
+
+    private SerialBuilderImpl(boolean isBuildingSingleObject, OutputSink sink, BuilderOptions options) {
+        this(isBuildingSingleObject, sink, options, null);
+    }
 
+    /**
+     * Creates a builder which is reused by the given context, applying the options of the context.
+     *
+     * @param sink
+     *      the {@link SegmentedSink} of the context, possibly wrapped by a {@link ListeningSink}
+     */
+    SerialBuilderImpl(boolean isBuildingSingleObject, OutputSink sink, BuilderContext context) {
+        this(isBuildingSingleObject, sink, context.getOptions(), context);
+    }
+
+    private void writeStreamHeader() {
         out.writeShort(STREAM_MAGIC);
         out.writeShort(STREAM_VERSION);
     }
 
-    private void run(Runnable r) {
-        var actionsQueue = pendingObjectsActions.peekLast();
-        if (actionsQueue == null) {
-            r.run();
-        } else {
-            actionsQueue.add(r);
+    /**
+     * Resets the state of this builder so that it can be used for a new build, after its sink has been reset.
+     * Allocated buffers are kept.
+     */
+    void reset(boolean isBuildingSingleObject) {
+        this.isBuildingSingleObject = isBuildingSingleObject;
+        out.reset();
+        nextHandleIndex.set(0);
+        nestingDepth = 0;
+        outerBlockDataModesSize = 0;
+        objectArrayElementCountsSize = 0;
+        currentOutputScopeIndex = -1;
+
+        writeStreamHeader();
+    }
+
+    /** Element count value used for objects which can contain nested objects, but which are not object arrays */
+    private static final int DUMMY_ELEMENT_COUNT = -1;
+
+    /**
+     * Stack of element counts of the object arrays currently being written. The number of elements is only known
+     * once the array has been finished, so space for it is reserved in the output and the count is filled in at
+     * the end.
+     *
+     * <p>Objects which can themselves contain objects push {@link #DUMMY_ELEMENT_COUNT} to avoid having their
+     * nested objects influence the array elements count.
+     */
+    private int[] objectArrayElementCounts = new int[8];
+    /**
+     * Expected element counts of the object arrays currently being written, in parallel to {@link #objectArrayElementCounts};
+     * {@link #UNKNOWN_ELEMENT_COUNT} if the count is not known in advance.
+     */
+    private int[] objectArrayExpectedElementCounts = new int[8];
+    private int objectArrayElementCountsSize = 0;
+
+    private static final int UNKNOWN_ELEMENT_COUNT = -1;
+
+    private void pushElementCount(int count, int expectedCount) {
+        if (objectArrayElementCountsSize == objectArrayElementCounts.length) {
+            objectArrayElementCounts = Arrays.copyOf(objectArrayElementCounts, objectArrayElementCountsSize * 2);
+            objectArrayExpectedElementCounts = Arrays.copyOf(objectArrayExpectedElementCounts, objectArrayElementCountsSize * 2);
         }
+        objectArrayExpectedElementCounts[objectArrayElementCountsSize] = expectedCount;
+        objectArrayElementCounts[objectArrayElementCountsSize++] = count;
     }
 
-    private final Deque<AtomicInteger> objectArrayElementCounts = new LinkedList<>();
+    private int popElementCount() {
+        return objectArrayElementCounts[--objectArrayElementCountsSize];
+    }
+
+    private void popDummyElementCount() {
+        int dummyElementCount = popElementCount();
+        if (dummyElementCount != DUMMY_ELEMENT_COUNT) {
+            throw new IllegalStateException("Unexpected element count: " + dummyElementCount);
+        }
+    }
 
     private void onStartedObject(boolean canBeNested) {
-        AtomicInteger arrayElementsCount = objectArrayElementCounts.peekLast();
-        if (arrayElementsCount != null) {
-            arrayElementsCount.incrementAndGet();
+        if (objectArrayElementCountsSize > 0) {
+            int lastIndex = objectArrayElementCountsSize - 1;
+            int arrayElementsCount = objectArrayElementCounts[lastIndex];
+            if (arrayElementsCount != DUMMY_ELEMENT_COUNT) {
+                int expectedCount = objectArrayExpectedElementCounts[lastIndex];
+                if (expectedCount != UNKNOWN_ELEMENT_COUNT && arrayElementsCount >= expectedCount) {
+                    throw new IllegalStateException("Array has more elements than the expected " + expectedCount);
+                }
+                objectArrayElementCounts[lastIndex] = arrayElementsCount + 1;
+            }
         }
 
         // If object can itself have objects, record a dummy elements count to avoid having them
         // influence array elements count
         if (canBeNested) {
-            objectArrayElementCounts.addLast(null);
+            pushElementCount(DUMMY_ELEMENT_COUNT, UNKNOWN_ELEMENT_COUNT);
         }
     }
 
     @Override
     public Object objectHandle(Handle handle) {
         int handleIndex = HandleAccess.INSTANCE.getObjectIndex(handle);
-        run(() -> {
-            boolean oldMode = out.setBlockDataMode(false);
-            out.writeByte(TC_REFERENCE);
-            out.writeInt(baseWireHandle + handleIndex);
-            out.setBlockDataMode(oldMode);
-        });
+        boolean oldMode = out.setBlockDataMode(false);
+        out.writeByte(TC_REFERENCE);
+        out.writeInt(baseWireHandle + handleIndex);
+        out.setBlockDataMode(oldMode);
         onStartedObject(false);
         return this;
     }
 
     @Override
     public Object nullObject() {
-        run(() -> {
-            boolean oldMode = out.setBlockDataMode(false);
-            out.writeByte(TC_NULL);
-            out.setBlockDataMode(oldMode);
-        });
+        boolean oldMode = out.setBlockDataMode(false);
+        out.writeByte(TC_NULL);
+        out.setBlockDataMode(oldMode);
         onStartedObject(false);
         return this;
     }
@@ -156,17 +268,15 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         int handleIndex = nextHandleIndex.getAndIncrement();
         HandleAccess.INSTANCE.assignIndex(unassignedHandle, handleIndex);
 
-        run(() -> {
-            boolean oldMode = out.setBlockDataMode(false);
-            out.writeSerialString(s);
-            out.setBlockDataMode(oldMode);
-        });
+        boolean oldMode = out.setBlockDataMode(false);
+        out.writeSerialString(s);
+        out.setBlockDataMode(oldMode);
         onStartedObject(false);
         return this;
     }
 
     private DescriptorHierarchyBuilderImpl createDescriptorHierarchyBuilder(Handle postDescriptorHierarchyHandle) {
-        return new DescriptorHierarchyBuilderImpl(this, nextHandleIndex, postDescriptorHierarchyHandle, action -> run(() -> action.accept(out)));
+        return new DescriptorHierarchyBuilderImpl(this, nextHandleIndex, postDescriptorHierarchyHandle, out);
     }
 
     @Override
@@ -174,13 +284,8 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         Objects.requireNonNull(unassignedHandle);
         nestingDepth++;
 
-        AtomicBoolean oldMode = new AtomicBoolean();
-        run(() -> {
-            boolean oldModeValue = out.setBlockDataMode(false);
-            oldMode.set(oldModeValue);
-            out.writeByte(TC_ARRAY);
-        });
-        pendingPostObjectActions.addLast(() -> out.setBlockDataMode(oldMode.get()));
+        beginObjectBlockDataMode();
+        out.writeByte(TC_ARRAY);
         onStartedObject(true);
 
         @SuppressWarnings("unchecked")
@@ -201,96 +306,214 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
 
     @Override
     public ArrayEnd elements(boolean[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        boolean[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
         return this;
     }
 
     @Override
     public ArrayEnd elements(byte[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        byte[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
         return this;
     }
 
     @Override
     public ArrayEnd elements(char[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        char[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
         return this;
     }
 
     @Override
     public ArrayEnd elements(short[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        short[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
         return this;
     }
 
     @Override
     public ArrayEnd elements(int[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        int[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
         return this;
     }
 
     @Override
     public ArrayEnd elements(long[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        long[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
         return this;
     }
 
     @Override
     public ArrayEnd elements(float[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        float[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
         return this;
     }
 
     @Override
     public ArrayEnd elements(double[] array) {
-        // Clone array to prevent accidental modification in the meantime
-        double[] arrayCloned = array.clone();
-        run(() -> out.writeSerialArray(arrayCloned));
+        out.writeSerialArray(array);
+        return this;
+    }
+
+    /**
+     * Verifies the length of computed or encoded array elements. Also used by the simple builder, which has to
+     * verify the length before writing of an array is deferred until the enclosing object is written.
+     */
+    public static void verifyElementsLength(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length must not be negative: " + length);
+        }
+    }
+
+    @Override
+    public ArrayEnd intElements(int length, IntUnaryOperator elementFunction) {
+        verifyElementsLength(length);
+        Objects.requireNonNull(elementFunction);
+        out.writeSerialIntArrayFrom(length, elementFunction);
+        return this;
+    }
+
+    @Override
+    public ArrayEnd longElements(int length, IntToLongFunction elementFunction) {
+        verifyElementsLength(length);
+        Objects.requireNonNull(elementFunction);
+        out.writeSerialLongArrayFrom(length, elementFunction);
+        return this;
+    }
+
+    @Override
+    public ArrayEnd doubleElements(int length, IntToDoubleFunction elementFunction) {
+        verifyElementsLength(length);
+        Objects.requireNonNull(elementFunction);
+        out.writeSerialDoubleArrayFrom(length, elementFunction);
+        return this;
+    }
+
+    private static IllegalArgumentException createStreamLengthException(int length) {
+        return new IllegalArgumentException("Number of stream elements differs from length " + length);
+    }
+
+    @Override
+    public ArrayEnd intElements(int length, IntStream elements) {
+        try (elements) {
+            verifyElementsLength(length);
+            PrimitiveIterator.OfInt iterator = elements.iterator();
+            intElements(length, index -> {
+                if (!iterator.hasNext()) {
+                    throw createStreamLengthException(length);
+                }
+                return iterator.nextInt();
+            });
+            if (iterator.hasNext()) {
+                throw createStreamLengthException(length);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ArrayEnd longElements(int length, LongStream elements) {
+        try (elements) {
+            verifyElementsLength(length);
+            PrimitiveIterator.OfLong iterator = elements.iterator();
+            longElements(length, index -> {
+                if (!iterator.hasNext()) {
+                    throw createStreamLengthException(length);
+                }
+                return iterator.nextLong();
+            });
+            if (iterator.hasNext()) {
+                throw createStreamLengthException(length);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ArrayEnd doubleElements(int length, DoubleStream elements) {
+        try (elements) {
+            verifyElementsLength(length);
+            PrimitiveIterator.OfDouble iterator = elements.iterator();
+            doubleElements(length, index -> {
+                if (!iterator.hasNext()) {
+                    throw createStreamLengthException(length);
+                }
+                return iterator.nextDouble();
+            });
+            if (iterator.hasNext()) {
+                throw createStreamLengthException(length);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the size in bytes of a value of the primitive type, and throws an {@link IllegalArgumentException}
+     * if the type is not primitive. Also used by the simple builder to verify the component type of an encoded
+     * array before writing of the array is deferred.
+     */
+    public static int getPrimitiveSize(Class<?> type) {
+        if (type == boolean.class || type == byte.class) {
+            return 1;
+        } else if (type == char.class || type == short.class) {
+            return 2;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == long.class || type == double.class) {
+            return 8;
+        } else {
+            throw new IllegalArgumentException("Not a primitive type: " + type.getTypeName());
+        }
+    }
+
+    @Override
+    public ArrayEnd encodedElements(Class componentType, int length, ReadableByteChannel channel) {
+        int elementSize = getPrimitiveSize(componentType);
+        verifyElementsLength(length);
+        Objects.requireNonNull(channel);
+        out.writeSerialArray(length, elementSize, channel);
         return this;
     }
 
     @Override
     public ArrayObjectElementsStart beginObjectElements() {
-        pendingObjectsActions.addLast(new ArrayList<>());
-        objectArrayElementCounts.addLast(new AtomicInteger(0));
+        // Number of elements is not known yet; reserve space for it and write it once the elements are finished
+        out.reserveInt();
+        pushElementCount(0, UNKNOWN_ELEMENT_COUNT);
+        return this;
+    }
+
+    @Override
+    public ArrayObjectElementsStart beginObjectElements(int elementsCount) {
+        if (elementsCount < 0) {
+            throw new IllegalArgumentException("Elements count must not be negative: " + elementsCount);
+        }
+        // Number of elements is known; write it directly so that the elements do not have to be retained until
+        // the count is filled in
+        out.writeInt(elementsCount);
+        pushElementCount(0, elementsCount);
         return this;
     }
 
     @Override
     public ArrayEnd endElements() {
-        List<Runnable> actions = pendingObjectsActions.removeLast();
-        int elementsCount = objectArrayElementCounts.removeLast().get();
-        run(() -> {
-            out.writeInt(elementsCount);
-            actions.forEach(Runnable::run);
-        });
+        int expectedCount = objectArrayExpectedElementCounts[objectArrayElementCountsSize - 1];
+        int elementsCount = popElementCount();
+        if (elementsCount == DUMMY_ELEMENT_COUNT) {
+            throw new IllegalStateException("Unexpected dummy element count");
+        }
+        if (expectedCount == UNKNOWN_ELEMENT_COUNT) {
+            out.writeReservedInt(elementsCount);
+        } else if (elementsCount != expectedCount) {
+            throw new IllegalStateException("Array has " + elementsCount + " elements, but expected " + expectedCount);
+        }
         return this;
     }
 
     @Override
     public Object endArray() {
         nestingDepth--;
-        run(pendingPostObjectActions.removeLast());
+        restoreOuterBlockDataMode();
 
         // Remove the dummy count for the array itself (not its elements)
-        AtomicInteger dummyElementCount = objectArrayElementCounts.removeLast();
-        if (dummyElementCount != null) {
-            throw new IllegalStateException("Unexpected element count: " + dummyElementCount);
-        }
+        popDummyElementCount();
 
         return this;
     }
@@ -300,13 +523,8 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         Objects.requireNonNull(unassignedHandle);
         nestingDepth++;
 
-        AtomicBoolean oldMode = new AtomicBoolean();
-        run(() -> {
-            boolean oldModeValue = out.setBlockDataMode(false);
-            oldMode.set(oldModeValue);
-            out.writeByte(TC_ENUM);
-        });
-        pendingPostObjectActions.addLast(() -> out.setBlockDataMode(oldMode.get()));
+        beginObjectBlockDataMode();
+        out.writeByte(TC_ENUM);
         onStartedObject(false);
 
         @SuppressWarnings("unchecked")
@@ -319,14 +537,14 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         Objects.requireNonNull(constantName);
         // Handle for string
         nextHandleIndex.getAndIncrement();
-        run(() -> out.writeSerialString(constantName));
+        out.writeSerialString(constantName);
         return this;
     }
 
     @Override
     public Object endEnum() {
         nestingDepth--;
-        run(pendingPostObjectActions.removeLast());
+        restoreOuterBlockDataMode();
         return this;
     }
 
@@ -335,13 +553,8 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         Objects.requireNonNull(unassignedHandle);
         nestingDepth++;
 
-        AtomicBoolean oldMode = new AtomicBoolean();
-        run(() -> {
-            boolean oldModeValue = out.setBlockDataMode(false);
-            oldMode.set(oldModeValue);
-            run(() -> out.writeByte(TC_CLASS));
-        });
-        pendingPostObjectActions.addLast(() -> out.setBlockDataMode(oldMode.get()));
+        beginObjectBlockDataMode();
+        out.writeByte(TC_CLASS);
         onStartedObject(false);
         return createDescriptorHierarchyBuilder(unassignedHandle);
     }
@@ -349,7 +562,7 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
     @Override
     public Object endClass() {
         nestingDepth--;
-        run(pendingPostObjectActions.removeLast());
+        restoreOuterBlockDataMode();
         return this;
     }
 
@@ -369,13 +582,8 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         Objects.requireNonNull(unassignedHandle);
         nestingDepth++;
 
-        AtomicBoolean oldMode = new AtomicBoolean();
-        run(() -> {
-            boolean oldModeValue = out.setBlockDataMode(false);
-            oldMode.set(oldModeValue);
-            out.writeByte(TC_OBJECT);
-        });
-        pendingPostObjectActions.addLast(() -> out.setBlockDataMode(oldMode.get()));
+        beginObjectBlockDataMode();
+        out.writeByte(TC_OBJECT);
         onStartedObject(true);
 
         @SuppressWarnings("unchecked")
@@ -399,13 +607,8 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         Objects.requireNonNull(unassignedHandle);
         nestingDepth++;
 
-        AtomicBoolean oldMode = new AtomicBoolean();
-        run(() -> {
-            boolean oldModeValue = out.setBlockDataMode(false);
-            oldMode.set(oldModeValue);
-            out.writeByte(TC_OBJECT);
-        });
-        pendingPostObjectActions.addLast(() -> out.setBlockDataMode(oldMode.get()));
+        beginObjectBlockDataMode();
+        out.writeByte(TC_OBJECT);
         // Use `canBeNested: true` (even though Externalizable cannot be nested with this builder)
         // to pop elements count in `endObject()`
         onStartedObject(true);
@@ -422,13 +625,21 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
      * multiple are in scope (e.g. for nested Externalizable objects).
      */
     private int currentOutputScopeIndex = -1;
+    /**
+     * Whether incorrect usage of {@link ObjectBuildingDataOutput} is detected; see {@link BuilderOptions#checkUsage()}.
+     */
+    private final boolean checkUsage;
 
     private void writeDataWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
         int originalNestingDepth = nestingDepth;
         int outputScopeIndex = ++currentOutputScopeIndex;
+        boolean checkUsage = this.checkUsage;
 
         ObjectBuildingDataOutput dataOutput = new ObjectBuildingDataOutput() {
             private void verifyOutputIsUsable() {
+                if (!checkUsage) {
+                    return;
+                }
                 if (outputScopeIndex != currentOutputScopeIndex) {
                     throw new IllegalStateException("Other output is currently active; make sure you called the method on the correct ObjectBuildingDataOutput variable");
                 }
@@ -437,88 +648,94 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
                 }
             }
 
-            private void run(Runnable r) {
-                verifyOutputIsUsable();
-                SerialBuilderImpl.this.run(r);
-            }
-
             @Override
             public void write(int b) {
-                run(() -> out.write(b));
+                verifyOutputIsUsable();
+                out.write(b);
             }
 
             @Override
             public void write(byte[] b) {
-                // Clone array to prevent accidental modification in the meantime
-                var copy = b.clone();
-                run(() -> out.write(copy));
+                Objects.requireNonNull(b);
+                verifyOutputIsUsable();
+                out.write(b);
             }
 
             @Override
             public void write(byte[] b, int off, int len) {
                 Objects.checkFromIndexSize(off, len, b.length);
-                // Clone array to prevent accidental modification in the meantime
-                var copy = b.clone();
-                run(() -> out.write(copy, off, len));
+                verifyOutputIsUsable();
+                out.write(b, off, len);
             }
 
             @Override
             public void writeBoolean(boolean v) {
-                run(() -> out.writeBoolean(v));
+                verifyOutputIsUsable();
+                out.writeBoolean(v);
             }
 
             @Override
             public void writeByte(int v) {
-                run(() -> out.writeByte(v));
+                verifyOutputIsUsable();
+                out.writeByte(v);
             }
 
             @Override
             public void writeShort(int v) {
-                run(() -> out.writeShort(v));
+                verifyOutputIsUsable();
+                out.writeShort(v);
             }
 
             @Override
             public void writeChar(int v) {
-                run(() -> out.writeChar(v));
+                verifyOutputIsUsable();
+                out.writeChar(v);
             }
 
             @Override
             public void writeInt(int v) {
-                run(() -> out.writeInt(v));
+                verifyOutputIsUsable();
+                out.writeInt(v);
             }
 
             @Override
             public void writeLong(long v) {
-                run(() -> out.writeLong(v));
+                verifyOutputIsUsable();
+                out.writeLong(v);
             }
 
             @Override
             public void writeFloat(float v) {
-                run(() -> out.writeFloat(v));
+                verifyOutputIsUsable();
+                out.writeFloat(v);
             }
 
             @Override
             public void writeDouble(double v) {
-                run(() -> out.writeDouble(v));
+                verifyOutputIsUsable();
+                out.writeDouble(v);
             }
 
             @Deprecated
             @Override
             public void writeBytes(String s) {
                 Objects.requireNonNull(s);
-                run(() -> out.writeBytes(s));
+                verifyOutputIsUsable();
+                out.writeBytes(s);
             }
 
             @Override
             public void writeChars(String s) {
                 Objects.requireNonNull(s);
-                run(() -> out.writeChars(s));
+                verifyOutputIsUsable();
+                out.writeChars(s);
             }
 
             @Override
             public void writeUTF(String s) {
                 Objects.requireNonNull(s);
-                run(() -> out.writeUTF(s));
+                verifyOutputIsUsable();
+                out.writeUTF(s);
             }
 
             // ObjectStart methods
@@ -606,7 +823,7 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
             throw new UncheckedIOException(e);
         }
 
-        if (nestingDepth != originalNestingDepth) {
+        if (checkUsage && nestingDepth != originalNestingDepth) {
             throw new IllegalStateException("Usage of ObjectBuildingDataOutput did not complete builder call; make sure all builder methods are called until the return type is Void");
         }
         currentOutputScopeIndex--;
@@ -617,7 +834,7 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         boolean writeBlockData = protocolVersion.compareTo(ProtocolVersion.V2) >= 0;
 
         if (writeBlockData) {
-            run(() -> out.setBlockDataMode(true));
+            out.setBlockDataMode(true);
         }
 
         @SuppressWarnings("unchecked")
@@ -625,8 +842,8 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         writeDataWith(writerT);
 
         if (writeBlockData) {
-            run(() -> out.setBlockDataMode(false));
-            run(() -> out.writeByte(TC_ENDBLOCKDATA));
+            out.setBlockDataMode(false);
+            out.writeByte(TC_ENDBLOCKDATA);
         }
         return this;
     }
@@ -636,93 +853,66 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         return this;
     }
 
-    private final Deque<AtomicBoolean> hasWrittenSlot = new LinkedList<>();
-    private final Deque<Queue<Runnable>> fieldActions = new LinkedList<>();
-
     @Override
     public SlotStart beginSlot() {
-        hasWrittenSlot.addLast(new AtomicBoolean(false));
-        fieldActions.addLast(new LinkedList<>());
         return this;
     }
 
-    private List<ThrowingConsumer<DataOutput>> primitiveFieldsActions;
-
     @Override
     public SlotPrimitiveFields beginPrimitiveFields() {
-        primitiveFieldsActions = new ArrayList<>();
         return this;
     }
 
     @Override
     public SlotPrimitiveFields booleanValue(boolean b) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeBoolean(b));
+        out.writeBoolean(b);
         return this;
     }
 
     @Override
     public SlotPrimitiveFields byteValue(byte b) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeByte(b));
+        out.writeByte(b);
         return this;
     }
 
     @Override
     public SlotPrimitiveFields charValue(char c) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeChar(c));
+        out.writeChar(c);
         return this;
     }
 
     @Override
     public SlotPrimitiveFields shortValue(short s) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeShort(s));
+        out.writeShort(s);
         return this;
     }
 
     @Override
     public SlotPrimitiveFields intValue(int i) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeInt(i));
+        out.writeInt(i);
         return this;
     }
 
     @Override
     public SlotPrimitiveFields longValue(long l) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeLong(l));
+        out.writeLong(l);
         return this;
     }
 
     @Override
     public SlotPrimitiveFields floatValue(float f) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeFloat(f));
+        out.writeFloat(f);
         return this;
     }
 
     @Override
     public SlotPrimitiveFields doubleValue(double d) {
-        primitiveFieldsActions.add(dataOut -> dataOut.writeDouble(d));
+        out.writeDouble(d);
         return this;
     }
 
     @Override
     public SlotObjectFieldsStart endPrimitiveFields() {
-        ByteArrayOutputStream tempOut = new ByteArrayOutputStream();
-        DataOutputStream dataOut = new DataOutputStream(tempOut);
-        primitiveFieldsActions.forEach(action -> {
-            try {
-                action.accept(dataOut);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        });
-
-        try {
-            dataOut.close();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
-        byte[] array = tempOut.toByteArray();
-        primitiveFieldsActions = null;
-        run(() -> out.write(array));
-
         return this;
     }
 
@@ -738,35 +928,19 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
 
     @Override
     public SlotEnd writeObjectWith(ThrowingConsumer writer) {
-        hasWrittenSlot.getLast().set(true);
-
-        run(() -> out.setBlockDataMode(true));
+        out.setBlockDataMode(true);
 
         @SuppressWarnings("unchecked")
         ThrowingConsumer<ObjectBuildingDataOutput> writerT = writer;
         writeDataWith(writerT);
 
-        // Write the fields written with `defaultWriteObject()`, if any
-        Queue<Runnable> fieldActions = this.fieldActions.removeLast();
-        if (!fieldActions.isEmpty()) {
-            run(() -> out.setBlockDataMode(false));
-            fieldActions.forEach(this::run);
-            run(() -> out.setBlockDataMode(true));
-        }
-
-        run(() -> {
-            out.setBlockDataMode(false);
-            out.writeByte(TC_ENDBLOCKDATA);
-        });
+        out.setBlockDataMode(false);
+        out.writeByte(TC_ENDBLOCKDATA);
         return this;
     }
 
     @Override
     public SlotsStart endSlot() {
-        if (!hasWrittenSlot.removeLast().get()) {
-            Queue<Runnable> fieldActions = this.fieldActions.removeLast();
-            fieldActions.forEach(this::run);
-        }
         return this;
     }
 
@@ -775,33 +949,47 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         return this;
     }
 
-    private byte[] getSerialData() {
+    /**
+     * Finishes writing the serialization data, writing all remaining data to the {@link #sink}.
+     */
+    private void finishSerialData() {
         out.close();
-        return binaryOut.toByteArray();
+    }
+
+    private byte[] getSerialData() {
+        finishSerialData();
+        OutputSink dataSink = sink instanceof ListeningSink listeningSink ? listeningSink.getDelegate() : sink;
+        if (!(dataSink instanceof SegmentedSink segmentedSink)) {
+            throw new AssertionError("Unexpected sink: " + sink);
+        }
+        return segmentedSink.toByteArray();
     }
 
     @Override
     public Object endObject() {
         nestingDepth--;
-        run(pendingPostObjectActions.removeLast());
+        restoreOuterBlockDataMode();
 
-        AtomicInteger dummyElementCount = objectArrayElementCounts.removeLast();
-        // When not currently writing object array elements, element count is dummy `null`
-        if (dummyElementCount != null) {
-            throw new IllegalStateException("Unexpected element count: " + dummyElementCount);
-        }
+        // When not currently writing object array elements, element count is dummy value
+        popDummyElementCount();
 
         // Check if top-level object was finished
         if (nestingDepth == 0) {
-            if (!objectArrayElementCounts.isEmpty()) {
-                throw new AssertionError("Unprocessed element counts: " + objectArrayElementCounts);
+            if (objectArrayElementCountsSize != 0) {
+                throw new AssertionError("Unprocessed element counts: " + objectArrayElementCountsSize);
             }
-            if (!pendingPostObjectActions.isEmpty()) {
-                throw new AssertionError("Unprocessed post object actions: " + pendingPostObjectActions.size());
+            if (outerBlockDataModesSize != 0) {
+                throw new AssertionError("Unprocessed block data modes: " + outerBlockDataModesSize);
             }
 
             if (isBuildingSingleObject) {
-                return getSerialData();
+                byte[] data = getSerialData();
+                // Single object build ends here; builds with a writer release the context themselves, see
+                // writeSerializationDataWith(BuilderContext, ThrowingConsumer)
+                if (context != null) {
+                    context.release();
+                }
+                return data;
             } else {
                 return null;
             }
@@ -812,11 +1000,27 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
 
     @SuppressWarnings("unchecked")
     public static ObjectStart<byte[]> createStart() {
-        return new SerialBuilderImpl(true);
+        return new SerialBuilderImpl(true, new SegmentedSink(), BuilderOptions.DEFAULT);
+    }
+
+    /**
+     * Creates the start for building a single object, reusing the builder of the context.
+     */
+    @SuppressWarnings("unchecked")
+    public static ObjectStart<byte[]> createStart(BuilderContext context) {
+        return context.acquireBuilder(true);
     }
 
     public static SerialBuilder.SerializableBuilderStart startSerializable(Handle unassignedHandle) {
-        var delegate = createStart().beginSerializableObject(unassignedHandle);
+        return startSerializable(createStart(), unassignedHandle);
+    }
+
+    public static SerialBuilder.SerializableBuilderStart startSerializable(BuilderContext context) {
+        return startSerializable(createStart(context), new Handle());
+    }
+
+    private static SerialBuilder.SerializableBuilderStart startSerializable(ObjectStart<byte[]> start, Handle unassignedHandle) {
+        var delegate = start.beginSerializableObject(unassignedHandle);
         return new SerialBuilder.SerializableBuilderStart() {
             @Override
             public DescriptorsList<SerializableObjectStart<byte[]>> beginDescriptorHierarchy() {
@@ -831,7 +1035,15 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
     }
 
     public static SerialBuilder.ExternalizableBuilderStart startExternalizable(Handle unassignedHandle) {
-        var delegate = createStart().beginExternalizableObject(unassignedHandle);
+        return startExternalizable(createStart(), unassignedHandle);
+    }
+
+    public static SerialBuilder.ExternalizableBuilderStart startExternalizable(BuilderContext context) {
+        return startExternalizable(createStart(context), new Handle());
+    }
+
+    private static SerialBuilder.ExternalizableBuilderStart startExternalizable(ObjectStart<byte[]> start, Handle unassignedHandle) {
+        var delegate = start.beginExternalizableObject(unassignedHandle);
         return new SerialBuilder.ExternalizableBuilderStart() {
             @Override
             public DescriptorsList<ExternalizableObjectStart<byte[]>> beginDescriptorHierarchy() {
@@ -845,11 +1057,209 @@ public class SerialBuilderImpl implements ObjectStart, ArrayObjectElementsStart,
         };
     }
 
-    public static byte[] writeSerializationDataWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
-        SerialBuilderImpl serialBuilder = new SerialBuilderImpl(false);
-        serialBuilder.out.setBlockDataMode(true);
-        serialBuilder.writeDataWith(writer);
-        serialBuilder.out.setBlockDataMode(false);
-        return serialBuilder.getSerialData();
+    private void writeTopLevelDataWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        out.setBlockDataMode(true);
+        writeDataWith(writer);
+        out.setBlockDataMode(false);
+    }
+
+    /**
+     * Writes the serialization data to the sink, applying the options. All methods writing serialization
+     * data with an {@link ObjectBuildingDataOutput} to a sink use this method, so the options apply regardless
+     * of the sink.
+     */
+    private static void writeSerializationDataWith(OutputSink sink, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        if (options.dataListener() != null) {
+            sink = new ListeningSink(sink, options.dataListener());
+        }
+        SerialBuilderImpl serialBuilder = new SerialBuilderImpl(false, sink, options);
+        serialBuilder.writeTopLevelDataWith(writer);
+        serialBuilder.finishSerialData();
+    }
+
+    public static byte[] writeSerializationDataWith(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        SegmentedSink sink = new SegmentedSink();
+        writeSerializationDataWith(sink, options, writer);
+        return sink.toByteArray();
+    }
+
+    public static byte[] writeSerializationDataWith(BuilderContext context, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        SerialBuilderImpl serialBuilder = context.acquireBuilder(false);
+        try {
+            serialBuilder.writeTopLevelDataWith(writer);
+            return serialBuilder.getSerialData();
+        } finally {
+            // Release the context even if writing failed; in contrast to single object building the build
+            // cannot be continued afterwards
+            context.release();
+        }
+    }
+
+    public static long computeSerializationDataSize(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        CountingSink sink = new CountingSink();
+        writeSerializationDataWith(sink, options, writer);
+        return sink.size();
+    }
+
+    public static byte[] writeExactSizeSerializationDataWith(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        // Only pass the data to the listener once, when it is actually written
+        long size = computeSerializationDataSize(options.withDataListener(null), writer);
+        if (size > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Data is too large for a byte[]: " + size + " bytes");
+        }
+
+        byte[] data = new byte[(int) size];
+        ByteBufferSink sink = ByteBufferSink.forBuffer(ByteBuffer.wrap(data));
+        try {
+            writeSerializationDataWith(sink, options, writer);
+        } catch (BufferOverflowException e) {
+            throw new IllegalStateException("Writer wrote more data than during the sizing pass; writer must be deterministic", e);
+        }
+        if (sink.size() != size) {
+            throw new IllegalStateException("Writer wrote less data than during the sizing pass; writer must be deterministic");
+        }
+        return data;
+    }
+
+    public static SerialData writeSegmentedSerializationDataWith(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        SegmentedSink sink = new SegmentedSink();
+        writeSerializationDataWith(sink, options, writer);
+        return sink.toSerialData();
+    }
+
+    public static void writeSerializationDataWith(OutputStream out, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        writeSerializationDataWith(new StreamSink(out), options, writer);
+    }
+
+    /**
+     * Starts a daemon thread which writes the serialization data to the pipe.
+     */
+    private static void startProducerThread(ChunkPipe pipe, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        DaemonThreads.start("serial-builder-producer", () -> {
+            try {
+                writeSerializationDataWith(pipe.sink(), options, writer);
+            } catch (ChunkPipe.PipeClosedException ignored) {
+                // Consumer has closed the pipe; stop writing
+            } catch (Throwable t) {
+                pipe.fail(t);
+            }
+        });
+    }
+
+    public static InputStream newSerializationDataInputStream(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        ChunkPipe pipe = new ChunkPipe();
+        startProducerThread(pipe, options, writer);
+        return new ChunkPipeInputStream(pipe);
+    }
+
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return newSerializationDataPublisher(SerialDataPublisher.DAEMON_THREAD_EXECUTOR, options, writer);
+    }
+
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(Executor executor, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return new SerialDataPublisher(sink -> writeSerializationDataWith(sink, options, writer), SerialDataPublisher.DEFAULT_CHUNK_SIZE, executor);
+    }
+
+    private static final int PIPELINE_CHUNK_SIZE = 64 * 1024;
+    private static final int PIPELINE_CAPACITY = 4;
+
+    private static final Executor PIPELINE_IO_EXECUTOR = DaemonThreads.executor("serial-builder-io");
+
+    public static void writePipelinedSerializationDataWith(WritableByteChannel channel, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        writePipelinedSerializationDataWith(PIPELINE_IO_EXECUTOR, channel, options, writer);
+    }
+
+    public static void writePipelinedSerializationDataWith(Executor executor, WritableByteChannel channel, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        ChunkPipe pipe = new ChunkPipe(PIPELINE_CHUNK_SIZE, PIPELINE_CAPACITY, true);
+        AtomicReference<Throwable> ioFailure = new AtomicReference<>();
+        CountDownLatch ioDone = new CountDownLatch(1);
+        // If the executor rejects the task, the exception is propagated before the writer has been called
+        executor.execute(() -> {
+            try {
+                pipe.drainTo(channel);
+            } catch (Throwable t) {
+                ioFailure.set(t);
+                // Cancel the writer
+                pipe.close();
+            } finally {
+                ioDone.countDown();
+            }
+        });
+
+        try {
+            writeSerializationDataWith(pipe.sink(), options, writer);
+        } catch (ChunkPipe.PipeClosedException e) {
+            // I/O task closed the pipe because writing to the channel failed; exception is thrown below
+        } catch (RuntimeException | Error e) {
+            pipe.fail(e);
+            awaitUninterruptibly(ioDone);
+            throw e;
+        }
+        awaitUninterruptibly(ioDone);
+
+        Throwable failure = ioFailure.get();
+        if (failure instanceof IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        } else if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (failure instanceof Error error) {
+            throw error;
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean wasInterrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                wasInterrupted = true;
+            }
+        }
+        if (wasInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static int writeSerializationDataWith(ByteBuffer target, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        ByteBufferSink sink = ByteBufferSink.forBuffer(target);
+        writeSerializationDataWith(sink, options, writer);
+        return sink.size();
+    }
+
+    public static long writeSerializationDataWith(Path file, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            FileChannelSink sink = new FileChannelSink(channel, FileChannelSink.DEFAULT_STAGING_SIZE);
+            try {
+                writeSerializationDataWith(sink, options, writer);
+            } catch (Throwable t) {
+                // Don't leave incomplete data behind; the previous file content has already been truncated
+                try {
+                    sink.discard();
+                } catch (Throwable suppressed) {
+                    t.addSuppressed(suppressed);
+                }
+                throw t;
+            }
+            return sink.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static ByteBuffer writeSerializationDataToBufferWith(boolean direct, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        ByteBufferSink sink = ByteBufferSink.growable(direct);
+        writeSerializationDataWith(sink, options, writer);
+        return sink.takeBuffer();
+    }
+
+    public static ByteBuffer writeSerializationDataToBufferWith(boolean direct, int expectedSize, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        ByteBufferSink sink = ByteBufferSink.growable(direct, expectedSize);
+        writeSerializationDataWith(sink, options, writer);
+        return sink.takeBuffer();
     }
 }
@@ -0,0 +1,298 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Publisher emitting serialization data in chunks of fixed size. For every subscriber the data is written anew
+ * by a task run on the executor, and this task also sends all signals to the subscriber. The task blocks
+ * whenever the subscriber has no outstanding demand, so a slow subscriber pauses writing instead of causing
+ * the data to be buffered.
+ */
+class SerialDataPublisher implements Flow.Publisher<ByteBuffer> {
+    static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    /** Executor running every task on a new daemon thread */
+    static final Executor DAEMON_THREAD_EXECUTOR = DaemonThreads.executor("serial-builder-publisher");
+
+    /** Writes all serialization data to the given sink */
+    private final Consumer<OutputSink> dataWriter;
+    private final int chunkSize;
+    private final Executor executor;
+
+    public SerialDataPublisher(Consumer<OutputSink> dataWriter, int chunkSize, Executor executor) {
+        this.dataWriter = Objects.requireNonNull(dataWriter);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber);
+        DataSubscription subscription = new DataSubscription(subscriber);
+        try {
+            executor.execute(subscription::run);
+        } catch (RejectedExecutionException e) {
+            subscription.reject(e);
+        }
+    }
+
+    private class DataSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition demandChanged = lock.newCondition();
+        /** Number of requested chunks which have not been emitted yet */
+        private long demand;
+        private boolean isCancelled;
+        /** Whether the subscriber has requested a non-positive number of chunks, which has to be reported to it */
+        private boolean hasInvalidRequest;
+        private long invalidRequestCount;
+        /**
+         * Whether the writing thread was interrupted while waiting for demand; the subscription is then considered
+         * cancelled by the publisher, but the interruption is still reported to the subscriber
+         */
+        private boolean isInterrupted;
+        /**
+         * Whether the subscription has been cancelled, an invalid request was made or the writing thread was
+         * interrupted; allows checking this
+         * for every write without acquiring the lock
+         */
+        private volatile boolean isStopRequested;
+
+        private DataSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+            demand = 0;
+            isCancelled = false;
+            hasInvalidRequest = false;
+            invalidRequestCount = 0;
+            isInterrupted = false;
+            isStopRequested = false;
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    if (!hasInvalidRequest) {
+                        hasInvalidRequest = true;
+                        invalidRequestCount = n;
+                        isStopRequested = true;
+                    }
+                } else {
+                    // Cap at Long.MAX_VALUE, which is treated as unbounded demand
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                demandChanged.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                isCancelled = true;
+                isStopRequested = true;
+                demandChanged.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Throws an exception if the subscription has been cancelled, the subscriber has made an invalid
+         * request or the writing thread was interrupted. Must be called while holding the lock.
+         *
+         * @throws CancellationException
+         *      if the subscription has been cancelled
+         * @throws IllegalArgumentException
+         *      if the subscriber has requested a non-positive number of chunks
+         * @throws UncheckedIOException
+         *      if the writing thread was interrupted while waiting for demand
+         */
+        private void checkNotStopped() {
+            if (isCancelled) {
+                throw new CancellationException("Subscription has been cancelled");
+            }
+            if (hasInvalidRequest) {
+                throw new IllegalArgumentException("Non-positive request: " + invalidRequestCount);
+            }
+            if (isInterrupted) {
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for demand"));
+            }
+        }
+
+        /**
+         * Throws an exception if the subscription has been cancelled, the subscriber has made an invalid
+         * request or the writing thread was interrupted, so that writing stops without waiting for the next chunk to be emitted.
+         */
+        private void checkNotStoppedFast() {
+            if (isStopRequested) {
+                lock.lock();
+                try {
+                    checkNotStopped();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Waits until a chunk may be emitted. If the writing thread is interrupted while waiting, writing stops
+         * and the interruption is reported to the subscriber as error.
+         *
+         * @throws CancellationException
+         *      if the subscription has been cancelled
+         * @throws IllegalArgumentException
+         *      if the subscriber has requested a non-positive number of chunks
+         * @throws UncheckedIOException
+         *      if the writing thread was interrupted while waiting for demand
+         */
+        private void awaitDemand() {
+            lock.lock();
+            try {
+                while (demand == 0 && !isCancelled && !hasInvalidRequest && !isInterrupted) {
+                    try {
+                        demandChanged.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        isInterrupted = true;
+                        isStopRequested = true;
+                    }
+                }
+                checkNotStopped();
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isCancelled() {
+            lock.lock();
+            try {
+                return isCancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Handles an exception thrown by a method of the subscriber. The subscriber violated rule 2.13 of the
+         * Reactive Streams specification, so the subscription is considered cancelled and no further signals are
+         * sent to the subscriber.
+         *
+         * @return exception to throw to stop writing
+         */
+        private CancellationException subscriberFailed(Throwable t) {
+            cancel();
+            CancellationException exception = new CancellationException("Subscriber threw an exception");
+            exception.initCause(t);
+            return exception;
+        }
+
+        private void emit(ByteBuffer chunk) {
+            awaitDemand();
+            try {
+                subscriber.onNext(chunk.flip());
+            } catch (Throwable t) {
+                throw subscriberFailed(t);
+            }
+        }
+
+        /**
+         * Called if the executor rejected the task; signals the rejection to the subscriber.
+         */
+        private void reject(RejectedExecutionException e) {
+            if (callOnSubscribe()) {
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Calls {@link Flow.Subscriber#onSubscribe(Flow.Subscription)}. If it throws an exception, the subscription
+         * is considered cancelled and no further signals are sent, see {@link #subscriberFailed(Throwable)}.
+         *
+         * @return whether {@code onSubscribe} completed normally
+         */
+        private boolean callOnSubscribe() {
+            try {
+                subscriber.onSubscribe(this);
+                return true;
+            } catch (Throwable t) {
+                subscriberFailed(t);
+                return false;
+            }
+        }
+
+        private void run() {
+            if (!callOnSubscribe()) {
+                return;
+            }
+
+            OutputSink sink = new OutputSink() {
+                private ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    checkNotStoppedFast();
+                    while (len > 0) {
+                        int writeLength = Math.min(len, chunk.remaining());
+                        chunk.put(b, off, writeLength);
+                        off += writeLength;
+                        len -= writeLength;
+
+                        if (!chunk.hasRemaining()) {
+                            emit(chunk);
+                            // Subscriber owns the emitted chunk, so it cannot be reused
+                            chunk = ByteBuffer.allocate(chunkSize);
+                        }
+                    }
+                }
+
+                @Override
+                public void finish() {
+                    checkNotStoppedFast();
+                    if (chunk.position() > 0) {
+                        emit(chunk);
+                    }
+                    chunk = null;
+                }
+            };
+
+            try {
+                // Report an invalid request made by onSubscribe before writing any data
+                checkNotStoppedFast();
+                dataWriter.accept(sink);
+            } catch (Throwable t) {
+                // If the subscriber has cancelled the subscription or has thrown an exception, the exception is most
+                // likely the CancellationException thrown to stop writing; otherwise it is an exception of the writer,
+                // which might also be a CancellationException
+                if (!isCancelled()) {
+                    subscriber.onError(t);
+                }
+                return;
+            }
+
+            if (!isCancelled()) {
+                subscriber.onComplete();
+            }
+        }
+    }
+}
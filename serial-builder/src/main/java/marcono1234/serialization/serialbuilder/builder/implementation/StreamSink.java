@@ -0,0 +1,36 @@
+package marcono1234.serialization.serialbuilder.builder.implementation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+/**
+ * Sink writing to a user-provided {@link OutputStream}. The stream is flushed, but not closed once all
+ * data has been written.
+ */
+class StreamSink extends OutputSink {
+    private final OutputStream out;
+
+    public StreamSink(OutputStream out) {
+        this.out = Objects.requireNonNull(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        try {
+            out.write(b, off, len);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void finish() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,362 +1,290 @@
 package marcono1234.serialization.serialbuilder.builder.implementation;
 
-import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.DataOutput;
-import java.io.DataOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
+import java.io.UTFDataFormatException;
 import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Objects;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
 
-import static java.io.ObjectStreamConstants.TC_BLOCKDATA;
-import static java.io.ObjectStreamConstants.TC_BLOCKDATALONG;
 import static java.io.ObjectStreamConstants.TC_LONGSTRING;
 import static java.io.ObjectStreamConstants.TC_STRING;
 
-/*
- * TODO: Write primitive data in 1024 byte block chunks?
- * However, this is not a requirement by the serialization protocol and ObjectInputStream is able to read
- * the data even if it is not grouped in 1024 byte block chunks.
- */
-
 /**
  * {@link DataOutput} implementation which also supports special serialization data methods, such as
  * {@link #setBlockDataMode(boolean)} to enable or disable block mode.
  *
+ * <p>All data, including block data, is written directly to an {@link OutputBuffer}. Block data is split into
+ * chunks of at most 1024 bytes, matching the output of {@link java.io.ObjectOutputStream}. The header of a chunk
+ * is only written once the chunk is full or block data mode is deactivated.
+ *
  * <p>All methods of this class wrap thrown checked exceptions in unchecked ones.
  */
 class UncheckedBlockDataOutputStream implements DataOutput, Closeable {
-    private DataOutputStream dataOut;
-    private ByteArrayOutputStream pendingBlockData;
+    private final OutputBuffer buffer;
+    private boolean isBlockDataModeActive;
+    private boolean isClosed;
+
+    public UncheckedBlockDataOutputStream(OutputBuffer buffer) {
+        this.buffer = Objects.requireNonNull(buffer);
+        isBlockDataModeActive = false;
+        isClosed = false;
+    }
+
     /**
-     * Either {@link #dataOut} or wrapping {@link #pendingBlockData}, depending on whether block
-     * data mode is currently active.
+     * Resets this stream and its buffer so that they can be used again for writing new data.
      */
-    private DataOutputStream currentDataOut;
-
-    public UncheckedBlockDataOutputStream(OutputStream out) {
-        this.dataOut = new DataOutputStream(Objects.requireNonNull(out));
-        currentDataOut = dataOut;
-        pendingBlockData = null;
+    public void reset() {
+        buffer.reset();
+        isBlockDataModeActive = false;
+        isClosed = false;
     }
 
     @Override
     public void write(int b) {
-        try {
-            currentDataOut.write(b);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.write(b);
     }
 
     @Override
     public void write(byte[] b) {
-        try {
-            currentDataOut.write(b);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.write(b, 0, b.length);
     }
 
     @Override
     public void write(byte[] b, int off, int len) {
-        try {
-            currentDataOut.write(b, off, len);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.write(b, off, len);
     }
 
     @Override
     public void writeBoolean(boolean v) {
-        try {
-            currentDataOut.writeBoolean(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.write(v ? 1 : 0);
     }
 
     @Override
     public void writeByte(int v) {
-        try {
-            currentDataOut.writeByte(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.write(v);
     }
 
     @Override
     public void writeShort(int v) {
-        try {
-            currentDataOut.writeShort(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.writeShort(v);
     }
 
     @Override
     public void writeChar(int v) {
-        try {
-            currentDataOut.writeChar(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.writeShort(v);
     }
 
     @Override
     public void writeInt(int v) {
-        try {
-            currentDataOut.writeInt(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.writeInt(v);
     }
 
     @Override
     public void writeLong(long v) {
-        try {
-            currentDataOut.writeLong(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.writeLong(v);
     }
 
     @Override
     public void writeFloat(float v) {
-        try {
-            currentDataOut.writeFloat(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.writeInt(Float.floatToIntBits(v));
     }
 
     @Override
     public void writeDouble(double v) {
-        try {
-            currentDataOut.writeDouble(v);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        buffer.writeLong(Double.doubleToLongBits(v));
     }
 
     @Deprecated // Method is error-prone because it only supports ASCII
     @Override
     public void writeBytes(String s) {
-        try {
-            currentDataOut.writeBytes(s);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            buffer.write(s.charAt(i));
         }
     }
 
     @Override
     public void writeChars(String s) {
-        try {
-            currentDataOut.writeChars(s);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            buffer.writeShort(s.charAt(i));
         }
     }
 
     @Override
     public void writeUTF(String s) {
-        try {
-            currentDataOut.writeUTF(s);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        long length = ModifiedUtf8.encodedLength(s);
+        if (length > 65535) {
+            throw new UncheckedIOException(new UTFDataFormatException("Encoded string is too long: " + length + " bytes"));
         }
+        writeShort((int) length);
+        buffer.writeModifiedUtf8(s, length);
     }
 
     // Custom methods
 
     /**
-     * Writes a {@code String} in the serialization format.
+     * Writes a {@code String} in the serialization format. Block data mode must not be active.
      */
     public void writeSerialString(String s) {
-        ByteArrayOutputStream tempOut = new ByteArrayOutputStream(s.length());
+        verifyBlockDataModeInactive();
 
-        // See https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/io/DataInput.html#modified-utf-8
-        for (char c : s.toCharArray()) {
-            if (c >= 0x0001 && c <= 0x007F) {
-                tempOut.write(c);
-            }
-            // Covers 0x0000 || (0x0080 - 0x07FF)
-            else if (c <= 0x07FF) {
-                tempOut.write(0b110_00000 | (c >> 6) & 0b11111);
-                tempOut.write(0b10_000000 | c & 0b111111);
-            }
-            // Covers 0x0800 - 0xFFFF
-            else {
-                tempOut.write(0b1110_0000 | (c >> 12) & 0b1111);
-                tempOut.write(0b10_000000 | (c >> 6) & 0b111111);
-                tempOut.write(0b10_000000 | c & 0b111111);
-            }
-        }
-
-        byte[] stringBytes = tempOut.toByteArray();
-        int length = stringBytes.length;
+        long length = ModifiedUtf8.encodedLength(s);
         if (length <= 65535) {
             writeByte(TC_STRING);
-            writeShort(length);
+            writeShort((int) length);
         } else {
             writeByte(TC_LONGSTRING);
             writeLong(length);
         }
-        write(stringBytes);
+        buffer.writeModifiedUtf8(s, length);
     }
 
+    // Array methods; block data mode must not be active because arrays are never part of block data
+
     public void writeSerialArray(boolean... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (boolean b : array) {
-                currentDataOut.writeBoolean(b);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.writeArrayElements(array);
     }
 
     public void writeSerialArray(byte... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (byte b : array) {
-                currentDataOut.writeByte(b);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.write(array, 0, array.length);
     }
 
     public void writeSerialArray(char... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (char c : array) {
-                currentDataOut.writeChar(c);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.writeArrayElements(array);
     }
 
     public void writeSerialArray(short... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (short s : array) {
-                currentDataOut.writeShort(s);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.writeArrayElements(array);
     }
 
     public void writeSerialArray(int... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (int i : array) {
-                currentDataOut.writeInt(i);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.writeArrayElements(array);
     }
 
     public void writeSerialArray(long... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (long l : array) {
-                currentDataOut.writeLong(l);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.writeArrayElements(array);
     }
 
     public void writeSerialArray(float... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (float f : array) {
-                currentDataOut.writeFloat(f);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.writeArrayElements(array);
     }
 
     public void writeSerialArray(double... array) {
-        try {
-            currentDataOut.writeInt(array.length);
-            for (double d : array) {
-                currentDataOut.writeDouble(d);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+        verifyBlockDataModeInactive();
+        writeInt(array.length);
+        buffer.writeArrayElements(array);
+    }
+
+    public void writeSerialIntArrayFrom(int length, IntUnaryOperator elementFunction) {
+        verifyBlockDataModeInactive();
+        writeInt(length);
+        buffer.writeIntElementsFrom(length, elementFunction);
+    }
+
+    public void writeSerialLongArrayFrom(int length, IntToLongFunction elementFunction) {
+        verifyBlockDataModeInactive();
+        writeInt(length);
+        buffer.writeLongElementsFrom(length, elementFunction);
+    }
+
+    public void writeSerialDoubleArrayFrom(int length, IntToDoubleFunction elementFunction) {
+        verifyBlockDataModeInactive();
+        writeInt(length);
+        buffer.writeDoubleElementsFrom(length, elementFunction);
+    }
+
+    /**
+     * Writes an array whose elements are read in already encoded form from the channel.
+     */
+    public void writeSerialArray(int length, int elementSize, ReadableByteChannel channel) {
+        verifyBlockDataModeInactive();
+        writeInt(length);
+        buffer.writeArrayElements((long) length * elementSize, channel);
     }
 
     // Block data methods
 
     public boolean isBlockDataModeActive() {
-        return pendingBlockData != null;
+        return isBlockDataModeActive;
     }
 
     public boolean setBlockDataMode(boolean active) {
-        boolean wasActive = isBlockDataModeActive();
+        boolean wasActive = isBlockDataModeActive;
 
         if (active) {
             if (wasActive) {
                 throw new IllegalStateException("Block data mode is already active");
             }
-            pendingBlockData = new ByteArrayOutputStream();
-            currentDataOut = new DataOutputStream(pendingBlockData);
+            buffer.beginBlockData();
+            isBlockDataModeActive = true;
         } else {
             if (!wasActive) {
                 // Nothing to do
                 return false;
             }
 
-            try {
-                currentDataOut.flush();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-            byte[] blockData = pendingBlockData.toByteArray();
-            pendingBlockData = null;
-            // Restore non-block-mode output
-            currentDataOut = dataOut;
-
-            int length = blockData.length;
-            if (length > 0) {
-                if (length <= 255) {
-                    writeByte(TC_BLOCKDATA);
-                    writeByte(length);
-                } else {
-                    writeByte(TC_BLOCKDATALONG);
-                    writeInt(length);
-                }
-                write(blockData);
-            }
+            buffer.endBlockData();
+            isBlockDataModeActive = false;
         }
 
         return wasActive;
     }
 
+    // Reservation methods
+
+    private void verifyBlockDataModeInactive() {
+        if (isBlockDataModeActive()) {
+            throw new IllegalStateException("Block data mode is active");
+        }
+    }
+
+    /**
+     * Reserves space for an {@code int} value which is only known later, and which is written using
+     * {@link #writeReservedInt(int)}. Block data mode must not be active.
+     */
+    public void reserveInt() {
+        verifyBlockDataModeInactive();
+        buffer.reserveInt();
+    }
+
+    /**
+     * Writes the value for the last pending {@link #reserveInt()} call.
+     */
+    public void writeReservedInt(int v) {
+        buffer.writeReservedInt(v);
+    }
+
     @Override
     public void close() {
-        if (dataOut == null) {
+        if (isClosed) {
             return;
         }
-        try {
-            dataOut.close();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
-        dataOut = null;
+        isClosed = true;
 
-        // Check for pending block data after stream has been closed, in case close() was called as
-        // part of exception handling (e.g. try-with-resources)
-        if (isBlockDataModeActive()) {
+        // Check for pending block data before closing the buffer, otherwise the buffer would fail due to
+        // pending reservation for the block data header
+        if (isBlockDataModeActive) {
             throw new IllegalStateException("Stream has pending block data");
         }
+        buffer.close();
     }
 }
@@ -15,7 +15,14 @@ import java.io.Externalizable;
 import java.io.ObjectOutput;
 import java.io.Serializable;
 import java.lang.reflect.Proxy;
+import java.nio.channels.ReadableByteChannel;
 import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 public interface ObjectStart<C> {
     /**
@@ -212,6 +219,228 @@ public interface ObjectStart<C> {
         return array(new Handle(), array);
     }
 
+    /**
+     * Writes a {@code int} array whose elements are computed on the fly by the given function, and assigns
+     * a handle to it. The complete array does not have to exist in memory. The function is called once for every
+     * index, in ascending order, and must not use this builder. It might only be called once an enclosing object
+     * is written.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     */
+    C intArray(Handle unassignedHandle, int length, IntUnaryOperator elementFunction);
+    /**
+     * Writes a {@code int} array whose elements are computed on the fly by the given function.
+     *
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     * @see #intArray(Handle, int, IntUnaryOperator)
+     */
+    default C intArray(int length, IntUnaryOperator elementFunction) {
+        return intArray(new Handle(), length, elementFunction);
+    }
+
+    /**
+     * Writes a {@code long} array whose elements are computed on the fly by the given function, and assigns
+     * a handle to it. The complete array does not have to exist in memory. The function is called once for every
+     * index, in ascending order, and must not use this builder. It might only be called once an enclosing object
+     * is written.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     */
+    C longArray(Handle unassignedHandle, int length, IntToLongFunction elementFunction);
+    /**
+     * Writes a {@code long} array whose elements are computed on the fly by the given function.
+     *
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     * @see #longArray(Handle, int, IntToLongFunction)
+     */
+    default C longArray(int length, IntToLongFunction elementFunction) {
+        return longArray(new Handle(), length, elementFunction);
+    }
+
+    /**
+     * Writes a {@code double} array whose elements are computed on the fly by the given function, and assigns
+     * a handle to it. The complete array does not have to exist in memory. The function is called once for every
+     * index, in ascending order, and must not use this builder. It might only be called once an enclosing object
+     * is written.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     */
+    C doubleArray(Handle unassignedHandle, int length, IntToDoubleFunction elementFunction);
+    /**
+     * Writes a {@code double} array whose elements are computed on the fly by the given function.
+     *
+     * @param length
+     *      number of elements, must not be negative
+     * @param elementFunction
+     *      function computing the element at the given index
+     * @return <i>next step</i>
+     * @see #doubleArray(Handle, int, IntToDoubleFunction)
+     */
+    default C doubleArray(int length, IntToDoubleFunction elementFunction) {
+        return doubleArray(new Handle(), length, elementFunction);
+    }
+
+    /**
+     * Writes a {@code int} array whose elements are provided by the stream, and assigns a handle to it. The
+     * complete array does not have to exist in memory. The stream might only be consumed once an enclosing
+     * object is written; it is closed once the elements have been written.
+     *
+     * <p>A mismatch between {@code length} and the number of stream elements is only detected while the
+     * stream is consumed, and the {@link IllegalArgumentException} is then thrown while writing; if the stream
+     * has more elements, only after all {@code length} elements have been written. In both cases the data is
+     * left partially written and should be discarded.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements
+     * @return <i>next step</i>
+     */
+    C intArray(Handle unassignedHandle, int length, IntStream elements);
+    /**
+     * Writes a {@code int} array whose elements are provided by the stream.
+     *
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements
+     * @return <i>next step</i>
+     * @see #intArray(Handle, int, IntStream)
+     */
+    default C intArray(int length, IntStream elements) {
+        return intArray(new Handle(), length, elements);
+    }
+
+    /**
+     * Writes a {@code long} array whose elements are provided by the stream, and assigns a handle to it. The
+     * complete array does not have to exist in memory. The stream might only be consumed once an enclosing
+     * object is written; it is closed once the elements have been written.
+     *
+     * <p>A mismatch between {@code length} and the number of stream elements is only detected while the
+     * stream is consumed, and the {@link IllegalArgumentException} is then thrown while writing; if the stream
+     * has more elements, only after all {@code length} elements have been written. In both cases the data is
+     * left partially written and should be discarded.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements
+     * @return <i>next step</i>
+     */
+    C longArray(Handle unassignedHandle, int length, LongStream elements);
+    /**
+     * Writes a {@code long} array whose elements are provided by the stream.
+     *
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements
+     * @return <i>next step</i>
+     * @see #longArray(Handle, int, LongStream)
+     */
+    default C longArray(int length, LongStream elements) {
+        return longArray(new Handle(), length, elements);
+    }
+
+    /**
+     * Writes a {@code double} array whose elements are provided by the stream, and assigns a handle to it. The
+     * complete array does not have to exist in memory. The stream might only be consumed once an enclosing
+     * object is written; it is closed once the elements have been written.
+     *
+     * <p>A mismatch between {@code length} and the number of stream elements is only detected while the
+     * stream is consumed, and the {@link IllegalArgumentException} is then thrown while writing; if the stream
+     * has more elements, only after all {@code length} elements have been written. In both cases the data is
+     * left partially written and should be discarded.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements
+     * @return <i>next step</i>
+     */
+    C doubleArray(Handle unassignedHandle, int length, DoubleStream elements);
+    /**
+     * Writes a {@code double} array whose elements are provided by the stream.
+     *
+     * @param length
+     *      number of elements, must match the number of elements of the stream
+     * @param elements
+     *      stream providing the elements
+     * @return <i>next step</i>
+     * @see #doubleArray(Handle, int, DoubleStream)
+     */
+    default C doubleArray(int length, DoubleStream elements) {
+        return doubleArray(new Handle(), length, elements);
+    }
+
+    /**
+     * Writes a primitive array whose elements are read in already encoded form from the channel, and assigns
+     * a handle to it. The channel must provide the elements in the encoding used by {@link java.io.DataOutput},
+     * that is in big-endian byte order and with 1 byte per {@code boolean}. The data is written as is; it is not
+     * validated. The channel might only be read once an enclosing object is written.
+     *
+     * <p>Exactly {@code length * size(componentType)} bytes are read from the channel. The channel must be
+     * in blocking mode. If it ends prematurely, an {@link java.io.UncheckedIOException} is thrown.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param componentType
+     *      primitive component type of the array, e.g. {@code long.class}
+     * @param length
+     *      number of elements, must not be negative
+     * @param channel
+     *      channel providing the encoded elements
+     * @return <i>next step</i>
+     */
+    C encodedArray(Handle unassignedHandle, Class<?> componentType, int length, ReadableByteChannel channel);
+    /**
+     * Writes a primitive array whose elements are read in already encoded form from the channel.
+     *
+     * @param componentType
+     *      primitive component type of the array, e.g. {@code long.class}
+     * @param length
+     *      number of elements, must not be negative
+     * @param channel
+     *      channel providing the encoded elements
+     * @return <i>next step</i>
+     * @see #encodedArray(Handle, Class, int, ReadableByteChannel)
+     */
+    default C encodedArray(Class<?> componentType, int length, ReadableByteChannel channel) {
+        return encodedArray(new Handle(), componentType, length, channel);
+    }
+
     /**
      * Begins an array of objects and assigns a handle to it. The next step are the array elements.
      *
@@ -262,6 +491,74 @@ public interface ObjectStart<C> {
         return beginObjectArray(new Handle(), arrayType);
     }
 
+    /**
+     * Begins an array of objects with a number of elements which is known in advance, and assigns a handle to it.
+     * The next step are the array elements. Exactly the given number of elements must be written, otherwise an
+     * {@link IllegalStateException} is thrown.
+     *
+     * <p>In contrast to {@link #beginObjectArray(Handle, String)} the elements are written directly instead of
+     * being retained until the array is ended, unless the array is itself nested inside an object whose data
+     * is not written yet.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param arrayType
+     *      type of the array in the form returned by {@link Class#getTypeName()}, e.g.
+     *      {@code java.util.Map$Entry[]}
+     * @param elementsCount
+     *      number of elements which will be written, must not be negative
+     * @return <i>next step</i>
+     */
+    ObjectArrayElements<C> beginObjectArray(Handle unassignedHandle, String arrayType, int elementsCount);
+
+    /**
+     * Begins an array of objects with a number of elements which is known in advance. The next step are the
+     * array elements.
+     *
+     * @param arrayType
+     *      type of the array in the form returned by {@link Class#getTypeName()}, e.g.
+     *      {@code java.util.Map$Entry[]}
+     * @param elementsCount
+     *      number of elements which will be written, must not be negative
+     * @return <i>next step</i>
+     * @see #beginObjectArray(Handle, String, int)
+     */
+    default ObjectArrayElements<C> beginObjectArray(String arrayType, int elementsCount) {
+        return beginObjectArray(new Handle(), arrayType, elementsCount);
+    }
+
+    /**
+     * Begins an array of objects with a number of elements which is known in advance, and assigns a handle to it.
+     * The next step are the array elements.
+     *
+     * @param unassignedHandle
+     *      handle which should be assigned a reference to the written array
+     * @param arrayType
+     *      type of the array, e.g. {@code String[].class}
+     * @param elementsCount
+     *      number of elements which will be written, must not be negative
+     * @return <i>next step</i>
+     * @see #beginObjectArray(Handle, String, int)
+     */
+    default ObjectArrayElements<C> beginObjectArray(Handle unassignedHandle, Class<? extends Object[]> arrayType, int elementsCount) {
+        return beginObjectArray(unassignedHandle, arrayType.getTypeName(), elementsCount);
+    }
+
+    /**
+     * Begins an array of objects with a number of elements which is known in advance. The next step are the
+     * array elements.
+     *
+     * @param arrayType
+     *      type of the array, e.g. {@code String[].class}
+     * @param elementsCount
+     *      number of elements which will be written, must not be negative
+     * @return <i>next step</i>
+     * @see #beginObjectArray(Handle, String, int)
+     */
+    default ObjectArrayElements<C> beginObjectArray(Class<? extends Object[]> arrayType, int elementsCount) {
+        return beginObjectArray(new Handle(), arrayType, elementsCount);
+    }
+
     /**
      * Writes an array of objects and assigns a handle to it. Allows using a separate method for creating the array
      * elements without having to interrupt the builder call chain. The writer function must call all builder methods
@@ -3,7 +3,10 @@ package marcono1234.serialization.serialbuilder.simplebuilder.implementation;
 import marcono1234.serialization.serialbuilder.builder.api.Enclosing;
 import marcono1234.serialization.serialbuilder.builder.api.Handle;
 import marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer;
+import marcono1234.serialization.serialbuilder.builder.implementation.BuilderOptions;
+import marcono1234.serialization.serialbuilder.builder.implementation.SerialBuilderImpl;
 import marcono1234.serialization.serialbuilder.builder.api.object.array.ArrayElements;
+import marcono1234.serialization.serialbuilder.builder.api.object.array.ArrayObjectElementsStart;
 import marcono1234.serialization.serialbuilder.builder.api.object.serializable.SlotEnd;
 import marcono1234.serialization.serialbuilder.builder.api.object.serializable.SlotPrimitiveFields;
 import marcono1234.serialization.serialbuilder.simplebuilder.api.ObjectBuildingDataOutput;
@@ -20,14 +23,22 @@ import marcono1234.serialization.serialbuilder.simplebuilder.api.object.serializ
 import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
 import java.util.function.UnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static java.io.ObjectStreamConstants.SC_BLOCK_DATA;
 import static java.io.ObjectStreamConstants.SC_ENUM;
@@ -57,9 +68,32 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
      * {@link ObjectBuildingDataOutput} object in case multiple are in scope (e.g. for nested Externalizable objects).
      */
     private boolean isActiveScope = true;
+    private final BuilderOptions options;
 
-    public DelegatingSimpleSerialBuilderImpl(marcono1234.serialization.serialbuilder.builder.api.object.ObjectStart<C> delegateBuilder) {
+    public DelegatingSimpleSerialBuilderImpl(marcono1234.serialization.serialbuilder.builder.api.object.ObjectStart<C> delegateBuilder, BuilderOptions options) {
         this.delegateBuilder = delegateBuilder;
+        this.options = Objects.requireNonNull(options);
+    }
+
+    public DelegatingSimpleSerialBuilderImpl(marcono1234.serialization.serialbuilder.builder.api.object.ObjectStart<C> delegateBuilder) {
+        this(delegateBuilder, BuilderOptions.DEFAULT);
+    }
+
+    /**
+     * Resets the state of this builder so that it can be used for a new build, after the delegate builder has
+     * been reset. The collections holding the state are cleared, but not allocated again.
+     */
+    protected void reset() {
+        nestingDepth = 0;
+        isActiveScope = true;
+        removePendingActions(0);
+        pendingActionsLevelsCount = 0;
+        streamedArrayElements.clear();
+        pendingObjectArrayData.clear();
+        currentSerializableObjectHandle.clear();
+        removeClassData(0);
+        classDataLevelsCount = 0;
+        currentProxyData.clear();
     }
 
     private interface ObjectWriterAction {
@@ -76,18 +110,114 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
         }
     }
 
-    private final Deque<Deque<ObjectWriterAction>> pendingObjectActions = new LinkedList<>();
+    /**
+     * Action writing an object from the actions of a nesting level, which are {@code actions[from]} to
+     * {@code actions[to - 1]}.
+     */
+    private interface LevelWriterAction {
+        Object write(marcono1234.serialization.serialbuilder.builder.api.object.ObjectStart<Object> objectStart, ObjectWriterAction[] actions, int from, int to);
+    }
+
+    /**
+     * Stack of the actions whose writing is deferred until the enclosing object is complete, for all nesting
+     * levels. The actions of a level directly follow the actions of its enclosing level; {@link #pendingActionsLevelStarts}
+     * contains the index of the first action of every level. Using flat arrays avoids allocating a collection
+     * for every level.
+     */
+    private ObjectWriterAction[] pendingActions = new ObjectWriterAction[16];
+    private int pendingActionsSize = 0;
+    private int[] pendingActionsLevelStarts = new int[8];
+    private int pendingActionsLevelsCount = 0;
+
+    /**
+     * Stack of the element builders of object arrays whose elements are written directly instead of being deferred,
+     * see {@link #beginObjectArray(Handle, String, int)}. Only contains elements while there are no
+     * pending actions levels.
+     */
+    private final Deque<ArrayObjectElementsStart<?>> streamedArrayElements = new ArrayDeque<>();
+
+    private void beginPendingActionsLevel() {
+        if (pendingActionsLevelsCount == pendingActionsLevelStarts.length) {
+            pendingActionsLevelStarts = Arrays.copyOf(pendingActionsLevelStarts, pendingActionsLevelsCount * 2);
+        }
+        pendingActionsLevelStarts[pendingActionsLevelsCount++] = pendingActionsSize;
+    }
+
+    /**
+     * Ends the current pending actions level, and returns the index of its first action. The actions of the
+     * level are not removed; the caller has to remove them with {@link #removePendingActions(int)}.
+     */
+    private int endPendingActionsLevel() {
+        return pendingActionsLevelStarts[--pendingActionsLevelsCount];
+    }
+
+    /** Returns the number of actions of the current pending actions level. */
+    private int currentLevelActionsCount() {
+        return pendingActionsSize - pendingActionsLevelStarts[pendingActionsLevelsCount - 1];
+    }
+
+    /** Removes all pending actions starting at the given index. */
+    private void removePendingActions(int newSize) {
+        // Clear references to allow garbage collection
+        Arrays.fill(pendingActions, newSize, pendingActionsSize, null);
+        pendingActionsSize = newSize;
+    }
+
+    /**
+     * Ends the current pending actions level, and runs the given action with the actions of that level.
+     * If the object is written immediately the actions are used in place; otherwise writing is deferred to
+     * the enclosing level and the actions are copied because they are removed from the stack.
+     */
+    private C runWithLevelActions(LevelWriterAction levelAction) {
+        int levelStart = endPendingActionsLevel();
+        int levelEnd = pendingActionsSize;
+        if (pendingActionsLevelsCount == 0) {
+            ObjectWriterAction[] actions = pendingActions;
+            try {
+                return run(start -> levelAction.write(start, actions, levelStart, levelEnd));
+            } finally {
+                removePendingActions(levelStart);
+            }
+        } else {
+            ObjectWriterAction[] actions = Arrays.copyOfRange(pendingActions, levelStart, levelEnd);
+            removePendingActions(levelStart);
+            return run(start -> levelAction.write(start, actions, 0, actions.length));
+        }
+    }
 
     protected C run(ObjectWriterAction action) {
-        var actionsQueue = pendingObjectActions.peekLast();
-        if (actionsQueue == null) {
-            return action.writeUnchecked(delegateBuilder);
+        if (pendingActionsLevelsCount == 0) {
+            var streamedElements = streamedArrayElements.peekLast();
+            if (streamedElements == null) {
+                return action.writeUnchecked(delegateBuilder);
+            } else {
+                // Replace the elements builder with the one for the next step
+                streamedArrayElements.removeLast();
+                streamedArrayElements.addLast(action.<ArrayObjectElementsStart<?>>writeUnchecked(streamedElements));
+                return null;
+            }
         } else {
-            actionsQueue.add(action);
+            if (pendingActionsSize == pendingActions.length) {
+                pendingActions = Arrays.copyOf(pendingActions, pendingActionsSize * 2);
+            }
+            pendingActions[pendingActionsSize++] = action;
             return null;
         }
     }
     
+    /**
+     * Returns a copy of the array if writing it is deferred by {@link #run(ObjectWriterAction)}, so that
+     * modifications by the user in the meantime do not affect the written data. Returns the array itself if it
+     * is written immediately, or if arrays are trusted.
+     */
+    private <A> A copyIfDeferred(A array, UnaryOperator<A> copier) {
+        Objects.requireNonNull(array);
+        if (options.trustArrays() || pendingActionsLevelsCount == 0) {
+            return array;
+        }
+        return copier.apply(array);
+    }
+
     @Override
     public Object objectHandle(Handle handle) {
         Objects.requireNonNull(handle);
@@ -135,7 +265,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, boolean[] array) {
         verifyUnassigned(unassignedHandle);
-        boolean[] arrayF = array.clone();
+        boolean[] arrayF = copyIfDeferred(array, boolean[]::clone);
         run(start -> beginArray(start, unassignedHandle, boolean.class).elements(arrayF).endArray());
         return this;
     }
@@ -143,7 +273,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, byte[] array) {
         verifyUnassigned(unassignedHandle);
-        byte[] arrayF = array.clone();
+        byte[] arrayF = copyIfDeferred(array, byte[]::clone);
         run(start -> beginArray(start, unassignedHandle, byte.class).elements(arrayF).endArray());
         return this;
     }
@@ -151,7 +281,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, char[] array) {
         verifyUnassigned(unassignedHandle);
-        char[] arrayF = array.clone();
+        char[] arrayF = copyIfDeferred(array, char[]::clone);
         run(start -> beginArray(start, unassignedHandle, char.class).elements(arrayF).endArray());
         return this;
     }
@@ -159,7 +289,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, short[] array) {
         verifyUnassigned(unassignedHandle);
-        short[] arrayF = array.clone();
+        short[] arrayF = copyIfDeferred(array, short[]::clone);
         run(start -> beginArray(start, unassignedHandle, short.class).elements(arrayF).endArray());
         return this;
     }
@@ -167,7 +297,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, int[] array) {
         verifyUnassigned(unassignedHandle);
-        int[] arrayF = array.clone();
+        int[] arrayF = copyIfDeferred(array, int[]::clone);
         run(start -> beginArray(start, unassignedHandle, int.class).elements(arrayF).endArray());
         return this;
     }
@@ -175,7 +305,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, long[] array) {
         verifyUnassigned(unassignedHandle);
-        long[] arrayF = array.clone();
+        long[] arrayF = copyIfDeferred(array, long[]::clone);
         run(start -> beginArray(start, unassignedHandle, long.class).elements(arrayF).endArray());
         return this;
     }
@@ -183,7 +313,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, float[] array) {
         verifyUnassigned(unassignedHandle);
-        float[] arrayF = array.clone();
+        float[] arrayF = copyIfDeferred(array, float[]::clone);
         run(start -> beginArray(start, unassignedHandle, float.class).elements(arrayF).endArray());
         return this;
     }
@@ -191,25 +321,119 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object array(Handle unassignedHandle, double[] array) {
         verifyUnassigned(unassignedHandle);
-        double[] arrayF = array.clone();
+        double[] arrayF = copyIfDeferred(array, double[]::clone);
         run(start -> beginArray(start, unassignedHandle, double.class).elements(arrayF).endArray());
         return this;
     }
 
-    record ObjectArrayData(Handle unassignedHandle, String arrayType) {
+    @Override
+    public Object intArray(Handle unassignedHandle, int length, IntUnaryOperator elementFunction) {
+        verifyUnassigned(unassignedHandle);
+        SerialBuilderImpl.verifyElementsLength(length);
+        Objects.requireNonNull(elementFunction);
+        run(start -> beginArray(start, unassignedHandle, int.class).intElements(length, elementFunction).endArray());
+        return this;
+    }
+
+    @Override
+    public Object longArray(Handle unassignedHandle, int length, IntToLongFunction elementFunction) {
+        verifyUnassigned(unassignedHandle);
+        SerialBuilderImpl.verifyElementsLength(length);
+        Objects.requireNonNull(elementFunction);
+        run(start -> beginArray(start, unassignedHandle, long.class).longElements(length, elementFunction).endArray());
+        return this;
+    }
+
+    @Override
+    public Object doubleArray(Handle unassignedHandle, int length, IntToDoubleFunction elementFunction) {
+        verifyUnassigned(unassignedHandle);
+        SerialBuilderImpl.verifyElementsLength(length);
+        Objects.requireNonNull(elementFunction);
+        run(start -> beginArray(start, unassignedHandle, double.class).doubleElements(length, elementFunction).endArray());
+        return this;
+    }
+
+    @Override
+    public Object intArray(Handle unassignedHandle, int length, IntStream elements) {
+        verifyUnassigned(unassignedHandle);
+        SerialBuilderImpl.verifyElementsLength(length);
+        Objects.requireNonNull(elements);
+        run(start -> beginArray(start, unassignedHandle, int.class).intElements(length, elements).endArray());
+        return this;
+    }
+
+    @Override
+    public Object longArray(Handle unassignedHandle, int length, LongStream elements) {
+        verifyUnassigned(unassignedHandle);
+        SerialBuilderImpl.verifyElementsLength(length);
+        Objects.requireNonNull(elements);
+        run(start -> beginArray(start, unassignedHandle, long.class).longElements(length, elements).endArray());
+        return this;
+    }
+
+    @Override
+    public Object doubleArray(Handle unassignedHandle, int length, DoubleStream elements) {
+        verifyUnassigned(unassignedHandle);
+        SerialBuilderImpl.verifyElementsLength(length);
+        Objects.requireNonNull(elements);
+        run(start -> beginArray(start, unassignedHandle, double.class).doubleElements(length, elements).endArray());
+        return this;
+    }
+
+    @Override
+    public Object encodedArray(Handle unassignedHandle, Class componentType, int length, ReadableByteChannel channel) {
+        verifyUnassigned(unassignedHandle);
+        SerialBuilderImpl.getPrimitiveSize(componentType);
+        SerialBuilderImpl.verifyElementsLength(length);
+        Objects.requireNonNull(channel);
+        run(start -> beginArray(start, unassignedHandle, componentType).encodedElements(componentType, length, channel).endArray());
+        return this;
+    }
+
+    /**
+     * @param elementsCount
+     *      expected number of elements, or {@link #UNKNOWN_ELEMENTS_COUNT}
+     * @param isStreamed
+     *      whether the elements are written directly, see {@link #streamedArrayElements}
+     */
+    record ObjectArrayData(Handle unassignedHandle, String arrayType, int elementsCount, boolean isStreamed) {
         ObjectArrayData {
             verifyUnassigned(unassignedHandle);
             Objects.requireNonNull(arrayType);
         }
     }
 
-    private final Deque<ObjectArrayData> pendingObjectArrayData = new LinkedList<>();
+    private static final int UNKNOWN_ELEMENTS_COUNT = -1;
+
+    private final Deque<ObjectArrayData> pendingObjectArrayData = new ArrayDeque<>();
 
     @Override
     public ObjectArrayElements beginObjectArray(Handle unassignedHandle, String arrayType) {
         nestingDepth++;
-        pendingObjectArrayData.addLast(new ObjectArrayData(unassignedHandle, arrayType));
-        pendingObjectActions.addLast(new LinkedList<>());
+        pendingObjectArrayData.addLast(new ObjectArrayData(unassignedHandle, arrayType, UNKNOWN_ELEMENTS_COUNT, false));
+        beginPendingActionsLevel();
+        return this;
+    }
+
+    @Override
+    public ObjectArrayElements beginObjectArray(Handle unassignedHandle, String arrayType, int elementsCount) {
+        if (elementsCount < 0) {
+            throw new IllegalArgumentException("Elements count must not be negative: " + elementsCount);
+        }
+        nestingDepth++;
+
+        // If the array itself is not deferred, write its elements directly instead of deferring them
+        if (pendingActionsLevelsCount == 0) {
+            pendingObjectArrayData.addLast(new ObjectArrayData(unassignedHandle, arrayType, elementsCount, true));
+            var streamedElements = streamedArrayElements.peekLast();
+            @SuppressWarnings("unchecked")
+            var start = (marcono1234.serialization.serialbuilder.builder.api.object.ObjectStart<Object>) (streamedElements == null ? delegateBuilder : streamedElements);
+            var elementsStart = beginArray(start, unassignedHandle, arrayType).beginObjectElements(elementsCount);
+            streamedArrayElements.addLast(elementsStart);
+        } else {
+            pendingObjectArrayData.addLast(new ObjectArrayData(unassignedHandle, arrayType, elementsCount, false));
+            beginPendingActionsLevel();
+        }
         return this;
     }
 
@@ -217,18 +441,29 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     public Object endArray() {
         nestingDepth--;
         ObjectArrayData arrayData = pendingObjectArrayData.removeLast();
-        Deque<ObjectWriterAction> elementActions = pendingObjectActions.removeLast();
-        C result = run(start -> {
-            var current = beginArray(start, arrayData.unassignedHandle, arrayData.arrayType).beginObjectElements();
-            for (ObjectWriterAction elementAction : elementActions) {
-                current = elementAction.writeUnchecked(current);
+        C result;
+        if (arrayData.isStreamed) {
+            var elements = streamedArrayElements.removeLast();
+            result = run(start -> elements.endElements().endArray());
+        } else {
+            int elementsCount = arrayData.elementsCount;
+            int actualElementsCount = currentLevelActionsCount();
+            if (elementsCount != UNKNOWN_ELEMENTS_COUNT && actualElementsCount != elementsCount) {
+                throw new IllegalStateException("Array has " + actualElementsCount + " elements, but expected " + elementsCount);
             }
-            return current.endElements().endArray();
-        });
+            result = runWithLevelActions((start, elementActions, from, to) -> {
+                var arrayElements = beginArray(start, arrayData.unassignedHandle, arrayData.arrayType);
+                var current = elementsCount == UNKNOWN_ELEMENTS_COUNT ? arrayElements.beginObjectElements() : arrayElements.beginObjectElements(elementsCount);
+                for (int i = from; i < to; i++) {
+                    current = elementActions[i].writeUnchecked(current);
+                }
+                return current.endElements().endArray();
+            });
+        }
 
         if (nestingDepth == 0) {
-            if (!pendingObjectActions.isEmpty()) {
-                throw new AssertionError("Pending object actions: " + pendingObjectActions.size());
+            if (pendingActionsLevelsCount != 0) {
+                throw new AssertionError("Pending object actions levels: " + pendingActionsLevelsCount);
             }
             return result;
         } else {
@@ -333,20 +568,44 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
         }
 
         ClassData(String className, long serialVersionUID) {
-            this(className, serialVersionUID, new ArrayList<>(), new LinkedList<>(), new AtomicReference<>());
+            this(className, serialVersionUID, new ArrayList<>(), new ArrayDeque<>(), new AtomicReference<>());
         }
     }
 
-    private record PrimitiveFieldData(String fieldName, Class<?> fieldType, UnaryOperator<SlotPrimitiveFields<Object>> valueWriter) {
+    /**
+     * Data of a primitive field. The value is stored as its raw bits (zero-extended for boolean, {@code char},
+     * and sign-extended for other integral types) and is encoded according to the field type once the slot is
+     * written, so the field type of the descriptor and the written value cannot disagree.
+     */
+    private record PrimitiveFieldData(String fieldName, Class<?> fieldType, long valueBits) {
         PrimitiveFieldData {
             Objects.requireNonNull(fieldName);
             Objects.requireNonNull(fieldType);
-            Objects.requireNonNull(valueWriter);
 
-            if (!fieldType.isPrimitive()) {
+            if (!fieldType.isPrimitive() || fieldType == void.class) {
                 throw new IllegalArgumentException("Not a primitive type: " + fieldType.getTypeName());
             }
         }
+
+        SlotPrimitiveFields<Object> writeValue(SlotPrimitiveFields<Object> primitiveFields) {
+            if (fieldType == boolean.class) {
+                return primitiveFields.booleanValue(valueBits != 0);
+            } else if (fieldType == byte.class) {
+                return primitiveFields.byteValue((byte) valueBits);
+            } else if (fieldType == char.class) {
+                return primitiveFields.charValue((char) valueBits);
+            } else if (fieldType == short.class) {
+                return primitiveFields.shortValue((short) valueBits);
+            } else if (fieldType == int.class) {
+                return primitiveFields.intValue((int) valueBits);
+            } else if (fieldType == long.class) {
+                return primitiveFields.longValue(valueBits);
+            } else if (fieldType == float.class) {
+                return primitiveFields.floatValue(Float.intBitsToFloat((int) valueBits));
+            } else {
+                return primitiveFields.doubleValue(Double.longBitsToDouble(valueBits));
+            }
+        }
     }
 
     private record ObjectFieldData(String fieldName, String fieldType, AtomicReference<ObjectWriterAction> objectWriterAction) {
@@ -361,78 +620,110 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
         }
     }
 
-    private final Deque<Handle> currentSerializableObjectHandle = new LinkedList<>();
-    private final Deque<Deque<ClassData>> currentSerializableClassDataList = new LinkedList<>();
+    private final Deque<Handle> currentSerializableObjectHandle = new ArrayDeque<>();
+    /**
+     * Stack of the class data of the serializable objects currently being built, stored the same way as the
+     * {@link #pendingActions}. Nested objects are finished before the enclosing object continues, so the class
+     * data of the current object is always at the end.
+     */
+    private ClassData[] classDataStack = new ClassData[8];
+    private int classDataSize = 0;
+    private int[] classDataLevelStarts = new int[8];
+    private int classDataLevelsCount = 0;
+
+    /** Removes all class data starting at the given index. */
+    private void removeClassData(int newSize) {
+        // Clear references to allow garbage collection
+        Arrays.fill(classDataStack, newSize, classDataSize, null);
+        classDataSize = newSize;
+    }
+
+    private ClassData currentClassData() {
+        if (classDataSize == classDataLevelStarts[classDataLevelsCount - 1]) {
+            throw new IllegalStateException("No class data has been started");
+        }
+        return classDataStack[classDataSize - 1];
+    }
 
     @Override
     public SerializableObjectStart beginSerializableObject(Handle unassignedHandle) {
         nestingDepth++;
         currentSerializableObjectHandle.addLast(verifyUnassigned(unassignedHandle));
-        pendingObjectActions.addLast(new LinkedList<>());
-        currentSerializableClassDataList.addLast(new LinkedList<>());
+        beginPendingActionsLevel();
+        if (classDataLevelsCount == classDataLevelStarts.length) {
+            classDataLevelStarts = Arrays.copyOf(classDataLevelStarts, classDataLevelsCount * 2);
+        }
+        classDataLevelStarts[classDataLevelsCount++] = classDataSize;
         return this;
     }
 
     @Override
     public SerializableObjectData beginClassData(String className, long serialVersionUID) {
         Objects.requireNonNull(className);
-        currentSerializableClassDataList.getLast().add(new ClassData(className, serialVersionUID));
+        if (classDataSize == classDataStack.length) {
+            classDataStack = Arrays.copyOf(classDataStack, classDataSize * 2);
+        }
+        classDataStack[classDataSize++] = new ClassData(className, serialVersionUID);
         return this;
     }
 
+    private void addPrimitiveField(String fieldName, Class<?> fieldType, long valueBits) {
+        currentClassData().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, fieldType, valueBits));
+    }
+
     @Override
     public SerializableObjectData primitiveBooleanField(String fieldName, boolean value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, boolean.class, primitiveFields -> primitiveFields.booleanValue(value)));
+        addPrimitiveField(fieldName, boolean.class, value ? 1 : 0);
         return this;
     }
 
     @Override
     public SerializableObjectData primitiveByteField(String fieldName, byte value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, byte.class, primitiveFields -> primitiveFields.byteValue(value)));
+        addPrimitiveField(fieldName, byte.class, value);
         return this;
     }
 
     @Override
     public SerializableObjectData primitiveCharField(String fieldName, char value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, char.class, primitiveFields -> primitiveFields.charValue(value)));
+        addPrimitiveField(fieldName, char.class, value);
         return this;
     }
 
     @Override
     public SerializableObjectData primitiveShortField(String fieldName, short value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, short.class, primitiveFields -> primitiveFields.shortValue(value)));
+        addPrimitiveField(fieldName, short.class, value);
         return this;
     }
 
     @Override
     public SerializableObjectData primitiveIntField(String fieldName, int value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, int.class, primitiveFields -> primitiveFields.intValue(value)));
+        addPrimitiveField(fieldName, int.class, value);
         return this;
     }
 
     @Override
     public SerializableObjectData primitiveLongField(String fieldName, long value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, long.class, primitiveFields -> primitiveFields.longValue(value)));
+        addPrimitiveField(fieldName, long.class, value);
         return this;
     }
 
     @Override
     public SerializableObjectData primitiveFloatField(String fieldName, float value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, float.class, primitiveFields -> primitiveFields.floatValue(value)));
+        addPrimitiveField(fieldName, float.class, Float.floatToRawIntBits(value));
         return this;
     }
 
     @Override
     public SerializableObjectData primitiveDoubleField(String fieldName, double value) {
         Objects.requireNonNull(fieldName);
-        currentSerializableClassDataList.getLast().getLast().primitiveFieldDataList.add(new PrimitiveFieldData(fieldName, double.class, primitiveFields -> primitiveFields.doubleValue(value)));
+        addPrimitiveField(fieldName, double.class, Double.doubleToRawLongBits(value));
         return this;
     }
 
@@ -440,15 +731,19 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     public ObjectStart beginObjectField(String fieldName, String fieldType) {
         Objects.requireNonNull(fieldName);
         Objects.requireNonNull(fieldType);
-        currentSerializableClassDataList.getLast().getLast().objectFieldDataList.add(new ObjectFieldData(fieldName, fieldType));
+        currentClassData().objectFieldDataList.add(new ObjectFieldData(fieldName, fieldType));
         return this;
     }
 
     @Override
     public SerializableObjectData endField() {
         // When ending object field store the writer action in the class data
-        ObjectWriterAction objectWriterAction = pendingObjectActions.getLast().removeFirst();
-        currentSerializableClassDataList.getLast().getLast().objectFieldDataList.getLast().objectWriterAction().set(objectWriterAction);
+        if (currentLevelActionsCount() != 1) {
+            throw new IllegalStateException("Expected one object field value, but got: " + currentLevelActionsCount());
+        }
+        ObjectWriterAction objectWriterAction = pendingActions[pendingActionsSize - 1];
+        removePendingActions(pendingActionsSize - 1);
+        currentClassData().objectFieldDataList.getLast().objectWriterAction().set(objectWriterAction);
         return this;
     }
 
@@ -476,13 +771,25 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
      *      {@code ObjectBuildingDataOutput} to the {@code writer}
      */
     protected static ThrowingConsumer<marcono1234.serialization.serialbuilder.builder.api.ObjectBuildingDataOutput> createDataOutputConsumer(DelegatingSimpleSerialBuilderImpl<?> enclosing, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return createDataOutputConsumer(enclosing, enclosing == null ? BuilderOptions.DEFAULT : enclosing.options, writer);
+    }
+
+    /**
+     * Same as {@link #createDataOutputConsumer(DelegatingSimpleSerialBuilderImpl, ThrowingConsumer)}, except that
+     * the options are specified explicitly instead of being inherited from the enclosing builder.
+     */
+    protected static ThrowingConsumer<marcono1234.serialization.serialbuilder.builder.api.ObjectBuildingDataOutput> createDataOutputConsumer(DelegatingSimpleSerialBuilderImpl<?> enclosing, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
         Objects.requireNonNull(writer);
+        boolean checkUsage = options.checkUsage();
 
         return nonSimpleWriter -> {
-            DelegatingSimpleSerialBuilderImpl<Void> delegateObjectBuilder = new DelegatingSimpleSerialBuilderImpl<>(nonSimpleWriter);
+            DelegatingSimpleSerialBuilderImpl<Void> delegateObjectBuilder = new DelegatingSimpleSerialBuilderImpl<>(nonSimpleWriter, options);
             int originalNestingDepth = delegateObjectBuilder.nestingDepth;
             ObjectBuildingDataOutput dataOutput = new ObjectBuildingDataOutput() {
                 private void verifyOutputIsUsable() {
+                    if (!checkUsage) {
+                        return;
+                    }
                     if (!delegateObjectBuilder.isActiveScope) {
                         throw new IllegalStateException("Other output is currently active; make sure you called the method on the correct ObjectBuildingDataOutput variable");
                     }
@@ -655,6 +962,55 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
                     return null;
                 }
 
+                @Override
+                public Void intArray(Handle unassignedHandle, int length, IntUnaryOperator elementFunction) {
+                    verifyOutputIsUsable();
+                    delegateObjectBuilder.intArray(unassignedHandle, length, elementFunction);
+                    return null;
+                }
+
+                @Override
+                public Void longArray(Handle unassignedHandle, int length, IntToLongFunction elementFunction) {
+                    verifyOutputIsUsable();
+                    delegateObjectBuilder.longArray(unassignedHandle, length, elementFunction);
+                    return null;
+                }
+
+                @Override
+                public Void doubleArray(Handle unassignedHandle, int length, IntToDoubleFunction elementFunction) {
+                    verifyOutputIsUsable();
+                    delegateObjectBuilder.doubleArray(unassignedHandle, length, elementFunction);
+                    return null;
+                }
+
+                @Override
+                public Void intArray(Handle unassignedHandle, int length, IntStream elements) {
+                    verifyOutputIsUsable();
+                    delegateObjectBuilder.intArray(unassignedHandle, length, elements);
+                    return null;
+                }
+
+                @Override
+                public Void longArray(Handle unassignedHandle, int length, LongStream elements) {
+                    verifyOutputIsUsable();
+                    delegateObjectBuilder.longArray(unassignedHandle, length, elements);
+                    return null;
+                }
+
+                @Override
+                public Void doubleArray(Handle unassignedHandle, int length, DoubleStream elements) {
+                    verifyOutputIsUsable();
+                    delegateObjectBuilder.doubleArray(unassignedHandle, length, elements);
+                    return null;
+                }
+
+                @Override
+                public Void encodedArray(Handle unassignedHandle, Class<?> componentType, int length, ReadableByteChannel channel) {
+                    verifyOutputIsUsable();
+                    delegateObjectBuilder.encodedArray(unassignedHandle, componentType, length, channel);
+                    return null;
+                }
+
                 @SuppressWarnings("unchecked")
                 @Override
                 public ObjectArrayElements<Void> beginObjectArray(Handle unassignedHandle, String arrayType) {
@@ -662,6 +1018,13 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
                     return delegateObjectBuilder.beginObjectArray(unassignedHandle, arrayType);
                 }
 
+                @SuppressWarnings("unchecked")
+                @Override
+                public ObjectArrayElements<Void> beginObjectArray(Handle unassignedHandle, String arrayType, int elementsCount) {
+                    verifyOutputIsUsable();
+                    return delegateObjectBuilder.beginObjectArray(unassignedHandle, arrayType, elementsCount);
+                }
+
                 @Override
                 public Void objectArray(Handle unassignedHandle, String arrayType, Function<ObjectArrayElements<Enclosing>, Enclosing> writer) {
                     verifyOutputIsUsable();
@@ -753,7 +1116,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
             }
 
             writer.accept(dataOutput);
-            if (delegateObjectBuilder.nestingDepth != originalNestingDepth) {
+            if (checkUsage && delegateObjectBuilder.nestingDepth != originalNestingDepth) {
                 throw new IllegalStateException("Usage of ObjectBuildingDataOutput did not complete builder call; make sure all builder methods are called until the return type is Void");
             }
 
@@ -767,7 +1130,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public SerializableObjectDataEnd writeObjectWith(ThrowingConsumer writer) {
         Objects.requireNonNull(writer);
-        currentSerializableClassDataList.getLast().getLast().writeObjectWriter.set(writer);
+        currentClassData().writeObjectWriter.set(writer);
         return this;
     }
 
@@ -779,17 +1142,50 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object endObject() {
         nestingDepth--;
-        var remainingActions = pendingObjectActions.removeLast();
-        if (!remainingActions.isEmpty()) {
-            throw new IllegalStateException("Unexpected remaining object actions: " + remainingActions);
+        int remainingActionsCount = currentLevelActionsCount();
+        if (remainingActionsCount != 0) {
+            throw new IllegalStateException("Unexpected remaining object actions: " + remainingActionsCount);
         }
+        endPendingActionsLevel();
 
         Handle unassignedHandle = currentSerializableObjectHandle.removeLast();
-        Deque<ClassData> classDataList = currentSerializableClassDataList.removeLast();
-        Object result = run(start -> {
+        int classDataStart = classDataLevelStarts[--classDataLevelsCount];
+
+        Object result;
+        if (pendingActionsLevelsCount != 0) {
+            // Writing is deferred until the enclosing object is written, so copy the class data because it is
+            // removed from the stack now
+            ClassData[] classDataList = Arrays.copyOfRange(classDataStack, classDataStart, classDataSize);
+            removeClassData(classDataStart);
+            result = writeSerializableObject(unassignedHandle, classDataList, 0, classDataList.length);
+        } else {
+            // Object is written immediately, so the class data can be used in place
+            try {
+                result = writeSerializableObject(unassignedHandle, classDataStack, classDataStart, classDataSize);
+            } finally {
+                removeClassData(classDataStart);
+            }
+        }
+
+        if (nestingDepth == 0) {
+            if (pendingActionsLevelsCount != 0) {
+                throw new AssertionError("Pending object actions levels: " + pendingActionsLevelsCount);
+            }
+            return result;
+        } else {
+            return this;
+        }
+    }
+
+    /**
+     * Writes a serializable object, using the class data {@code classDataList[from]} to {@code classDataList[to - 1]}.
+     */
+    private C writeSerializableObject(Handle unassignedHandle, ClassData[] classDataList, int from, int to) {
+        return run(start -> {
             var descriptorsList = start.beginSerializableObject(unassignedHandle).beginDescriptorHierarchy();
             // Descriptor hierarchy is written in reverse order
-            for (ClassData classData : (Iterable<ClassData>) classDataList::descendingIterator) {
+            for (int i = to - 1; i >= from; i--) {
+                ClassData classData = classDataList[i];
                 @SuppressWarnings("unchecked")
                 ThrowingConsumer<ObjectBuildingDataOutput> writeObjectWriter = classData.writeObjectWriter.get();
                 int flags = SC_SERIALIZABLE;
@@ -816,10 +1212,11 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
             }
 
             var slotsStart = descriptorsList.endDescriptorHierarchy().beginSlots();
-            for (ClassData classData : classDataList) {
+            for (int i = from; i < to; i++) {
+                ClassData classData = classDataList[i];
                 var primitiveFieldValues = slotsStart.beginSlot().beginPrimitiveFields();
                 for (PrimitiveFieldData primitiveFieldData : classData.primitiveFieldDataList) {
-                    primitiveFieldValues = primitiveFieldData.valueWriter().apply(primitiveFieldValues);
+                    primitiveFieldValues = primitiveFieldData.writeValue(primitiveFieldValues);
                 }
 
                 var objectFieldValues = primitiveFieldValues.endPrimitiveFields().beginObjectFields();
@@ -840,15 +1237,6 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
 
             return slotsStart.endSlots().endObject();
         });
-
-        if (nestingDepth == 0) {
-            if (!pendingObjectActions.isEmpty()) {
-                throw new AssertionError("Pending object actions: " + pendingObjectActions.size());
-            }
-            return result;
-        } else {
-            return this;
-        }
     }
 
     @Override
@@ -883,8 +1271,8 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
         });
 
         if (nestingDepth == 0) {
-            if (!pendingObjectActions.isEmpty()) {
-                throw new AssertionError("Pending object actions: " + pendingObjectActions.size());
+            if (pendingActionsLevelsCount != 0) {
+                throw new AssertionError("Pending object actions levels: " + pendingActionsLevelsCount);
             }
             return result;
         } else {
@@ -899,7 +1287,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
         }
     }
 
-    private final Deque<ProxyData> currentProxyData = new LinkedList<>();
+    private final Deque<ProxyData> currentProxyData = new ArrayDeque<>();
 
     private C proxyObject(ObjectWriterAction invocationHandlerWriter) {
         Objects.requireNonNull(invocationHandlerWriter);
@@ -935,7 +1323,7 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
         nestingDepth++;
         currentProxyData.addLast(new ProxyData(unassignedHandle, interfaceNames.clone()));
         // Add new object actions nesting level for invocation handler object
-        pendingObjectActions.addLast(new LinkedList<>());
+        beginPendingActionsLevel();
         return this;
     }
 
@@ -964,14 +1352,16 @@ public class DelegatingSimpleSerialBuilderImpl<C> implements ObjectStart, Object
     @Override
     public Object endProxyObject() {
         nestingDepth--;
-        Deque<ObjectWriterAction> invocationHandlerActions = pendingObjectActions.removeLast();
-        if (invocationHandlerActions.size() != 1) {
-            throw new IllegalStateException("Expected one invocation handler action, but got: " + invocationHandlerActions);
+        int invocationHandlerActionsCount = currentLevelActionsCount();
+        if (invocationHandlerActionsCount != 1) {
+            throw new IllegalStateException("Expected one invocation handler action, but got: " + invocationHandlerActionsCount);
         }
-        C result = proxyObject(invocationHandlerActions.getFirst());
+        ObjectWriterAction invocationHandlerAction = pendingActions[pendingActionsSize - 1];
+        removePendingActions(endPendingActionsLevel());
+        C result = proxyObject(invocationHandlerAction);
         if (nestingDepth == 0) {
-            if (!pendingObjectActions.isEmpty()) {
-                throw new AssertionError("Pending object actions: " + pendingObjectActions.size());
+            if (pendingActionsLevelsCount != 0) {
+                throw new AssertionError("Pending object actions levels: " + pendingActionsLevelsCount);
             }
             return result;
         } else {
@@ -0,0 +1,25 @@
+package marcono1234.serialization.serialbuilder.simplebuilder.implementation;
+
+import marcono1234.serialization.serialbuilder.builder.implementation.BuilderContext;
+import marcono1234.serialization.serialbuilder.builder.implementation.BuilderOptions;
+
+/**
+ * Context which additionally reuses the simple builder wrapping the builder of the context.
+ */
+public class SimpleBuilderContext extends BuilderContext {
+    /** Lazily created simple builder; {@code null} if no simple build has used this context yet */
+    private SimpleSerialBuilderImpl simpleBuilder;
+
+    public SimpleBuilderContext(BuilderOptions options) {
+        super(options);
+        simpleBuilder = null;
+    }
+
+    SimpleSerialBuilderImpl getSimpleBuilder() {
+        return simpleBuilder;
+    }
+
+    void setSimpleBuilder(SimpleSerialBuilderImpl simpleBuilder) {
+        this.simpleBuilder = simpleBuilder;
+    }
+}
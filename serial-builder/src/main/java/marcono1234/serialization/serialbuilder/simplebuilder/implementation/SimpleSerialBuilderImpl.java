@@ -1,8 +1,10 @@
 package marcono1234.serialization.serialbuilder.simplebuilder.implementation;
 
+import marcono1234.serialization.serialbuilder.SerialData;
 import marcono1234.serialization.serialbuilder.SimpleSerialBuilder;
 import marcono1234.serialization.serialbuilder.builder.api.Handle;
 import marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer;
+import marcono1234.serialization.serialbuilder.builder.implementation.BuilderOptions;
 import marcono1234.serialization.serialbuilder.builder.implementation.SerialBuilderImpl;
 import marcono1234.serialization.serialbuilder.simplebuilder.api.ObjectBuildingDataOutput;
 import marcono1234.serialization.serialbuilder.simplebuilder.api.object.ObjectStart;
@@ -10,21 +12,56 @@ import marcono1234.serialization.serialbuilder.simplebuilder.api.object.proxy.Pr
 import marcono1234.serialization.serialbuilder.simplebuilder.api.object.proxy.ProxyObjectStart;
 import marcono1234.serialization.serialbuilder.simplebuilder.api.object.serializable.SerializableObjectStart;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
 public class SimpleSerialBuilderImpl extends DelegatingSimpleSerialBuilderImpl<byte[]> {
     public SimpleSerialBuilderImpl(marcono1234.serialization.serialbuilder.builder.api.object.ObjectStart<byte[]> delegateBuilder) {
         super(delegateBuilder);
     }
 
+    public SimpleSerialBuilderImpl(marcono1234.serialization.serialbuilder.builder.api.object.ObjectStart<byte[]> delegateBuilder, BuilderOptions options) {
+        super(delegateBuilder, options);
+    }
+
     @SuppressWarnings("unchecked")
     private static ObjectStart<byte[]> createStart() {
         return new SimpleSerialBuilderImpl(SerialBuilderImpl.createStart());
     }
 
+    /**
+     * Creates the start for building a single object, reusing the simple builder of the context if it has
+     * been used for a simple build before.
+     */
+    @SuppressWarnings("unchecked")
+    private static ObjectStart<byte[]> createStart(SimpleBuilderContext context) {
+        // Always returns the same builder for the same context, so the simple builder wrapping it can be reused
+        var delegateBuilder = SerialBuilderImpl.createStart(context);
+        SimpleSerialBuilderImpl simpleBuilder = context.getSimpleBuilder();
+        if (simpleBuilder != null) {
+            simpleBuilder.reset();
+            return simpleBuilder;
+        }
+        simpleBuilder = new SimpleSerialBuilderImpl(delegateBuilder, context.getOptions());
+        context.setSimpleBuilder(simpleBuilder);
+        return simpleBuilder;
+    }
+
     public static SimpleSerialBuilder.SerializableBuilderStart startSerializable(Handle unassignedHandle) {
         var delegate = createStart().beginSerializableObject(unassignedHandle);
         return delegate::beginClassData;
     }
 
+    public static SimpleSerialBuilder.SerializableBuilderStart startSerializable(SimpleBuilderContext context) {
+        var delegate = createStart(context).beginSerializableObject(new Handle());
+        return delegate::beginClassData;
+    }
+
     public static byte[] createExternalizable(Handle unassignedHandle, String typeName, long serialVersionUID, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
         return createStart().externalizableObject(unassignedHandle, typeName, serialVersionUID, writer);
     }
@@ -54,7 +91,63 @@ public class SimpleSerialBuilderImpl extends DelegatingSimpleSerialBuilderImpl<b
         };
     }
 
-    public static byte[] writeSerializationDataWith(ThrowingConsumer<ObjectBuildingDataOutput> writer) {
-        return SerialBuilderImpl.writeSerializationDataWith(createDataOutputConsumer(null, writer));
+    public static byte[] writeSerializationDataWith(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeSerializationDataWith(options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static void writeSerializationDataWith(OutputStream out, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        SerialBuilderImpl.writeSerializationDataWith(out, options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static byte[] writeSerializationDataWith(SimpleBuilderContext context, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeSerializationDataWith(context, createDataOutputConsumer(null, context.getOptions(), writer));
+    }
+
+    public static long computeSerializationDataSize(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.computeSerializationDataSize(options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static byte[] writeExactSizeSerializationDataWith(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeExactSizeSerializationDataWith(options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static SerialData writeSegmentedSerializationDataWith(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeSegmentedSerializationDataWith(options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static InputStream newSerializationDataInputStream(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.newSerializationDataInputStream(options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.newSerializationDataPublisher(options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static Flow.Publisher<ByteBuffer> newSerializationDataPublisher(Executor executor, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.newSerializationDataPublisher(executor, options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static void writePipelinedSerializationDataWith(WritableByteChannel channel, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        SerialBuilderImpl.writePipelinedSerializationDataWith(channel, options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static void writePipelinedSerializationDataWith(Executor executor, WritableByteChannel channel, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        SerialBuilderImpl.writePipelinedSerializationDataWith(executor, channel, options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static int writeSerializationDataWith(ByteBuffer target, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeSerializationDataWith(target, options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static long writeSerializationDataWith(Path file, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeSerializationDataWith(file, options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static ByteBuffer writeSerializationDataToBufferWith(boolean direct, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeSerializationDataToBufferWith(direct, options, createDataOutputConsumer(null, options, writer));
+    }
+
+    public static ByteBuffer writeSerializationDataToBufferWith(boolean direct, int expectedSize, BuilderOptions options, ThrowingConsumer<ObjectBuildingDataOutput> writer) {
+        return SerialBuilderImpl.writeSerializationDataToBufferWith(direct, expectedSize, options, createDataOutputConsumer(null, options, writer));
     }
 }
@@ -6,23 +6,53 @@ import marcono1234.serialization.serialbuilder.builder.api.ObjectBuildingDataOut
 import marcono1234.serialization.serialbuilder.builder.api.ThrowingConsumer;
 import marcono1234.serialization.serialbuilder.builder.api.descriptor.DescriptorsList;
 import marcono1234.serialization.serialbuilder.builder.api.descriptor.nonproxy.NonProxyDescriptorStart;
+import marcono1234.serialization.serialbuilder.builder.api.object.array.ArrayElements;
+import marcono1234.serialization.serialbuilder.builder.api.object.array.ArrayEnd;
 import marcono1234.serialization.serialbuilder.builder.api.object.serializable.SlotStart;
 import marcono1234.serialization.serialbuilder.builder.api.object.serializable.SlotsStart;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
 
 import static java.io.ObjectStreamConstants.SC_BLOCK_DATA;
 import static java.io.ObjectStreamConstants.SC_ENUM;
@@ -31,8 +61,12 @@ import static java.io.ObjectStreamConstants.SC_SERIALIZABLE;
 import static java.io.ObjectStreamConstants.SC_WRITE_METHOD;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class SerialBuilderTest {
@@ -563,6 +597,140 @@ class SerialBuilderTest {
         .endArray();
     }
 
+    @Test
+    void largePrimitiveArrays() {
+        int length = 5000;
+        boolean[] booleans = new boolean[length];
+        byte[] bytes = new byte[length];
+        char[] chars = new char[length];
+        short[] shorts = new short[length];
+        int[] ints = new int[length];
+        long[] longs = new long[length];
+        float[] floats = new float[length];
+        double[] doubles = new double[length];
+        Random random = new Random(1);
+        for (int i = 0; i < length; i++) {
+            booleans[i] = random.nextBoolean();
+            bytes[i] = (byte) random.nextInt();
+            chars[i] = (char) random.nextInt();
+            shorts[i] = (short) random.nextInt();
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            // Use raw bits to also cover non-canonical NaN values
+            floats[i] = Float.intBitsToFloat(random.nextInt());
+            doubles[i] = Double.longBitsToDouble(random.nextLong());
+        }
+        Object[] arrays = {booleans, bytes, chars, shorts, ints, longs, floats, doubles};
+
+        ThrowingConsumer<ObjectBuildingDataOutput> dataWriter = writer -> {
+            var arrayEnds = List.<Function<ArrayElements<Void>, ArrayEnd<Void>>>of(
+                e -> e.elements(booleans),
+                e -> e.elements(bytes),
+                e -> e.elements(chars),
+                e -> e.elements(shorts),
+                e -> e.elements(ints),
+                e -> e.elements(longs),
+                e -> e.elements(floats),
+                e -> e.elements(doubles)
+            );
+            for (int i = 0; i < arrays.length; i++) {
+                var elements = writer.beginArray()
+                    .beginDescriptorHierarchy()
+                        .beginDescriptor()
+                            .typeWithUid(arrays[i].getClass())
+                            .flags(SC_SERIALIZABLE)
+                        .endDescriptor()
+                    .endDescriptorHierarchy();
+                arrayEnds.get(i).apply(elements).endArray();
+            }
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            for (Object array : arrays) {
+                objOut.writeObject(array);
+            }
+        });
+
+        byte[] actualData = SerialBuilder.writeSerializationDataWith(dataWriter);
+        assertArrayEquals(expectedData, actualData);
+
+        // Data is written in multiple pieces when writing to stream
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writeSerializationDataWith(out, dataWriter);
+        assertArrayEquals(expectedData, out.toByteArray());
+    }
+
+    @Test
+    void computedPrimitiveArrays() {
+        int length = 5000;
+        int[] ints = new int[length];
+        long[] longs = new long[length];
+        double[] doubles = new double[length];
+        Random random = new Random(1);
+        for (int i = 0; i < length; i++) {
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            doubles[i] = Double.longBitsToDouble(random.nextLong());
+        }
+        ByteBuffer encodedLongs = ByteBuffer.allocate(length * Long.BYTES);
+        encodedLongs.asLongBuffer().put(longs);
+
+        Object[] arrays = {ints, longs, doubles, ints, longs, doubles, longs, new boolean[] {true, false}};
+        var arrayEnds = List.<Function<ArrayElements<Void>, ArrayEnd<Void>>>of(
+            e -> e.intElements(length, i -> ints[i]),
+            e -> e.longElements(length, i -> longs[i]),
+            e -> e.doubleElements(length, i -> doubles[i]),
+            e -> e.intElements(length, Arrays.stream(ints)),
+            e -> e.longElements(length, Arrays.stream(longs)),
+            e -> e.doubleElements(length, Arrays.stream(doubles)),
+            e -> e.encodedElements(long.class, length, Channels.newChannel(new ByteArrayInputStream(encodedLongs.array()))),
+            e -> e.encodedElements(boolean.class, 2, Channels.newChannel(new ByteArrayInputStream(new byte[] {1, 0})))
+        );
+        for (int i = 0; i < arrays.length; i++) {
+            Object array = arrays[i];
+            var arrayEnd = arrayEnds.get(i);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SerialBuilder.writeSerializationDataWith(out, writer -> {
+                var elements = writer.beginArray()
+                    .beginDescriptorHierarchy()
+                        .beginDescriptor()
+                            .typeWithUid(array.getClass())
+                            .flags(SC_SERIALIZABLE)
+                        .endDescriptor()
+                    .endDescriptorHierarchy();
+                arrayEnd.apply(elements).endArray();
+            });
+            byte[] expectedData = serializeWith(objOut -> objOut.writeObject(array));
+            assertArrayEquals(expectedData, out.toByteArray());
+        }
+
+        var e = assertThrows(IllegalArgumentException.class, () -> SerialBuilder.writeSerializationDataWith(writer -> {
+            writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(int[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .intElements(2, IntStream.of(1, 2, 3))
+            .endArray();
+        }));
+        assertEquals("Number of stream elements differs from length 2", e.getMessage());
+
+        var e2 = assertThrows(UncheckedIOException.class, () -> SerialBuilder.writeSerializationDataWith(writer -> {
+            writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(int[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .encodedElements(int.class, 2, Channels.newChannel(new ByteArrayInputStream(new byte[6])))
+            .endArray();
+        }));
+        assertEquals("Channel ended after 6 of 8 bytes", e2.getCause().getMessage());
+    }
+
     @Test
     void externalizable() {
         byte[] actualData = SerialBuilder.startExternalizableObject()
@@ -816,7 +984,6 @@ class SerialBuilderTest {
     /**
      * Tests behavior for large primitive data which would be written in 1024 byte chunks by {@link ObjectOutputStream}.
      */
-    @Disabled("Own block data stream implementation currently does not support 1024 byte chunks (though ObjectInputStream works even when data is not in 1024 byte chunks)")
     @Test
     void largePrimitiveData() {
         final int MAX_BLOCK_SIZE = 1024;
@@ -886,6 +1053,42 @@ class SerialBuilderTest {
         assertEquals("Other output is currently active; make sure you called the method on the correct ObjectBuildingDataOutput variable", e.getMessage());
     }
 
+    @Test
+    void writeObject_WrongOutputUsage_Unchecked() {
+        Function<Boolean, byte[]> builder = useInnerWriter -> SerialBuilder.startSerializableObject(new SerialBuilderContext(SerialBuilderOptions.defaults().withCheckUsage(false)))
+            .beginDescriptorHierarchy()
+                .beginDescriptor()
+                    .typeWithUid(ClassWithWriteObject.class)
+                    .flags(SC_SERIALIZABLE | SC_WRITE_METHOD)
+                .endDescriptor()
+            .endDescriptorHierarchy()
+            .beginSlots()
+                .beginSlot()
+                    .writeObjectWith(outerWriter -> {
+                        outerWriter.beginSerializableObject()
+                            .beginDescriptorHierarchy()
+                                .beginDescriptor()
+                                    .typeWithUid(ClassWithWriteObject.class)
+                                    .flags(SC_SERIALIZABLE | SC_WRITE_METHOD)
+                                .endDescriptor()
+                            .endDescriptorHierarchy()
+                            .beginSlots()
+                                .beginSlot()
+                                    .writeObjectWith(innerWriter -> {
+                                        (useInnerWriter ? innerWriter : outerWriter).writeInt(1);
+                                    })
+                                .endSlot()
+                            .endSlots()
+                        .endObject();
+                    })
+                .endSlot()
+            .endSlots()
+        .endObject();
+
+        // Incorrect usage is not detected when checks are disabled; here it happens to produce the same data
+        assertArrayEquals(builder.apply(true), builder.apply(false));
+    }
+
     @Test
     void writeObject_IncompleteBuilderUsage_TrailingMissingCall() {
         var start = SerialBuilder.startSerializableObject()
@@ -1341,6 +1544,101 @@ class SerialBuilderTest {
         assertArrayEquals(expectedData, actualData);
     }
 
+    @Test
+    void topLevelBlockData_Lengths() {
+        // Covers empty block data, TC_BLOCKDATA, TC_BLOCKDATALONG and splitting into 1024 byte chunks
+        int[] lengths = {0, 1, 255, 256, 1000, 1024, 1025, 1024 + 255, 1024 + 256, 5000};
+
+        ThrowingConsumer<ObjectBuildingDataOutput> dataWriter = writer -> {
+            for (int length : lengths) {
+                for (int i = 0; i < length; i++) {
+                    writer.writeByte(i);
+                }
+                writer.nullObject();
+            }
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            for (int length : lengths) {
+                for (int i = 0; i < length; i++) {
+                    objOut.writeByte(i);
+                }
+                objOut.writeObject(null);
+            }
+        });
+
+        assertArrayEquals(expectedData, SerialBuilder.writeSerializationDataWith(dataWriter));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writeSerializationDataWith(out, dataWriter);
+        assertArrayEquals(expectedData, out.toByteArray());
+    }
+
+    @Test
+    void topLevelStrings() {
+        String[] strings = {
+            "",
+            "ascii",
+            "\0",
+            "test \0 \u007F \u0080 \u07FF \u0800 \uD800\uDC00 \uDC00 \uFFFF",
+            // Requires TC_LONGSTRING
+            "a\u0100\u0800".repeat(20_000),
+            // ASCII string larger than the internal buffer, requires TC_LONGSTRING
+            "ascii ".repeat(20_000),
+        };
+
+        // Writes prefix with writeUTF because it only supports limited length; still covers block data chunking
+        byte[] actualData = SerialBuilder.writeSerializationDataWith(writer -> {
+            for (String s : strings) {
+                writer.string(s);
+                writer.writeUTF(s.substring(0, Math.min(s.length(), 20_000)));
+            }
+        });
+
+        byte[] expectedData = serializeWith(objOut -> {
+            for (String s : strings) {
+                objOut.writeObject(s);
+                objOut.writeUTF(s.substring(0, Math.min(s.length(), 20_000)));
+            }
+        });
+        assertArrayEquals(expectedData, actualData);
+    }
+
+    /**
+     * Large strings consisting only of ASCII characters are written in pieces, without first growing the
+     * internal buffer to the size of the string.
+     */
+    @Test
+    void writeSerializationDataWith_OutputStream_LargeAsciiStrings() {
+        String[] strings = {
+            "ascii ".repeat(20_000),
+            "\0 a\u0100 \uFFFF",
+            "a".repeat(65_535),
+            "test \u0080",
+            "b".repeat(65_536),
+        };
+        int[] maxWriteLength = {0};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                maxWriteLength[0] = Math.max(maxWriteLength[0], len);
+                super.write(b, off, len);
+            }
+        };
+        SerialBuilder.writeSerializationDataWith(out, writer -> {
+            for (String s : strings) {
+                writer.string(s);
+            }
+        });
+
+        byte[] expectedData = serializeWith(objOut -> {
+            for (String s : strings) {
+                objOut.writeObject(s);
+            }
+        });
+        assertArrayEquals(expectedData, out.toByteArray());
+        assertTrue(maxWriteLength[0] < 20_000, "Max write length: " + maxWriteLength[0]);
+    }
+
     @Test
     void topLevelMultipleObjects() {
         byte[] actualData = SerialBuilder.writeSerializationDataWith(writer -> {
@@ -1485,4 +1783,1091 @@ class SerialBuilderTest {
         });
         assertArrayEquals(expectedData, actualData);
     }
+
+    private static void writeMixedData(ObjectBuildingDataOutput writer) throws IOException {
+        writer.string("test");
+        writer.writeInt(1);
+
+        writer.beginArray()
+            .beginDescriptorHierarchy()
+                .beginDescriptor()
+                    .typeWithUid(Object[].class)
+                    .flags(SC_SERIALIZABLE)
+                .endDescriptor()
+            .endDescriptorHierarchy()
+            .beginObjectElements()
+                .string("a")
+                .nullObject()
+            .endElements()
+        .endArray();
+
+        writer.writeLong(5);
+    }
+
+    @Test
+    void writeSerializationDataWith_OutputStream() {
+        var out = new ByteArrayOutputStream() {
+            boolean wasClosed = false;
+
+            @Override
+            public void close() {
+                wasClosed = true;
+            }
+        };
+        SerialBuilder.writeSerializationDataWith(out, SerialBuilderTest::writeMixedData);
+        assertFalse(out.wasClosed);
+
+        byte[] expectedData = serializeWith(objOut -> {
+            objOut.writeObject("test");
+            objOut.writeInt(1);
+            objOut.writeObject(new Object[] {"a", null});
+            objOut.writeLong(5);
+        });
+        assertArrayEquals(expectedData, out.toByteArray());
+    }
+
+    @Test
+    void writeSerializationDataWith_Channel() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writeSerializationDataWith(Channels.newChannel(out), SerialBuilderTest::writeMixedData);
+
+        byte[] expectedData = SerialBuilder.writeSerializationDataWith(SerialBuilderTest::writeMixedData);
+        assertArrayEquals(expectedData, out.toByteArray());
+    }
+
+    /**
+     * Object arrays whose serialization data exceeds the internal buffer size, so that data has to be written
+     * to the stream while the element count of the outer array is still pending.
+     */
+    @Test
+    void writeSerializationDataWith_OutputStream_LargeObjectArrays() {
+        int outerLength = 3;
+        int innerLength = 2000;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writeSerializationDataWith(out, writer -> {
+            Handle innerDescriptorHandle = new Handle();
+            var elements = writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[][].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements();
+
+            for (int i = 0; i < outerLength; i++) {
+                var descriptorsList = elements.beginArray().beginDescriptorHierarchy();
+                var innerElements = (i == 0
+                    ? descriptorsList
+                        .beginDescriptor(innerDescriptorHandle)
+                            .typeWithUid(Object[].class)
+                            .flags(SC_SERIALIZABLE)
+                        .endDescriptor()
+                        .endDescriptorHierarchy()
+                    : descriptorsList.endDescriptorHierarchyWithHandle(innerDescriptorHandle)
+                ).beginObjectElements();
+
+                for (int j = 0; j < innerLength; j++) {
+                    innerElements.string("element " + i + "-" + j);
+                }
+                elements = innerElements.endElements().endArray();
+            }
+            elements.endElements().endArray();
+        });
+
+        byte[] expectedData = serializeWith(objOut -> {
+            Object[][] array = new Object[outerLength][innerLength];
+            for (int i = 0; i < outerLength; i++) {
+                for (int j = 0; j < innerLength; j++) {
+                    array[i][j] = "element " + i + "-" + j;
+                }
+            }
+            objOut.writeObject(array);
+        });
+        assertArrayEquals(expectedData, out.toByteArray());
+    }
+
+    @Test
+    void writeSerializationDataWith_OutputStream_CountedObjectArrays() {
+        int outerLength = 3;
+        int innerLength = 2000;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writeSerializationDataWith(out, writer -> {
+            Handle innerDescriptorHandle = new Handle();
+            var elements = writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[][].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements(outerLength);
+
+            for (int i = 0; i < outerLength; i++) {
+                var descriptorsList = elements.beginArray().beginDescriptorHierarchy();
+                var innerElements = (i == 0
+                    ? descriptorsList
+                        .beginDescriptor(innerDescriptorHandle)
+                            .typeWithUid(Object[].class)
+                            .flags(SC_SERIALIZABLE)
+                        .endDescriptor()
+                        .endDescriptorHierarchy()
+                    : descriptorsList.endDescriptorHierarchyWithHandle(innerDescriptorHandle)
+                ).beginObjectElements(innerLength);
+
+                for (int j = 0; j < innerLength; j++) {
+                    innerElements.string("element " + i + "-" + j);
+                }
+                elements = innerElements.endElements().endArray();
+            }
+            elements.endElements().endArray();
+        });
+
+        byte[] expectedData = serializeWith(objOut -> {
+            Object[][] array = new Object[outerLength][innerLength];
+            for (int i = 0; i < outerLength; i++) {
+                for (int j = 0; j < innerLength; j++) {
+                    array[i][j] = "element " + i + "-" + j;
+                }
+            }
+            objOut.writeObject(array);
+        });
+        assertArrayEquals(expectedData, out.toByteArray());
+
+        var e = assertThrows(IllegalStateException.class, () -> SerialBuilder.writeSerializationDataWith(writer -> {
+            writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements(1)
+                    .string("a")
+                    .string("b")
+                .endElements()
+            .endArray();
+        }));
+        assertEquals("Array has more elements than the expected 1", e.getMessage());
+
+        e = assertThrows(IllegalStateException.class, () -> SerialBuilder.writeSerializationDataWith(writer -> {
+            writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements(2)
+                    .string("a")
+                .endElements()
+            .endArray();
+        }));
+        assertEquals("Array has 1 elements, but expected 2", e.getMessage());
+    }
+
+    @Test
+    void writeSegmentedSerializationDataWith(@TempDir Path tempDir) throws IOException {
+        int length = 5000;
+        byte[] blockData = new byte[20_000];
+        new Random(1).nextBytes(blockData);
+
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            var elements = w.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements();
+            for (int i = 0; i < length; i++) {
+                elements.string("element " + i);
+            }
+            elements.endElements().endArray();
+            w.write(blockData);
+        };
+        SerialData serialData = SerialBuilder.writeSegmentedSerializationDataWith(writer);
+
+        byte[] expectedData = serializeWith(objOut -> {
+            Object[] array = new Object[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = "element " + i;
+            }
+            objOut.writeObject(array);
+            objOut.write(blockData);
+        });
+        assertArrayEquals(expectedData, SerialBuilder.writeSerializationDataWith(writer));
+        assertEquals(expectedData.length, serialData.size());
+        assertArrayEquals(expectedData, serialData.toByteArray());
+
+        List<ByteBuffer> buffers = serialData.asByteBuffers();
+        assertTrue(buffers.size() > 1);
+        ByteArrayOutputStream buffersOut = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : buffers) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            buffersOut.write(bytes);
+        }
+        assertArrayEquals(expectedData, buffersOut.toByteArray());
+
+        try (var channel = serialData.newChannel()) {
+            assertArrayEquals(expectedData, Channels.newInputStream(channel).readAllBytes());
+        }
+
+        Path file = tempDir.resolve("data.ser");
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            serialData.writeTo(fileChannel);
+        }
+        assertArrayEquals(expectedData, Files.readAllBytes(file));
+    }
+
+    @Test
+    void writeSerializationDataWith_Buffer() {
+        byte[] blockData = new byte[5000];
+        new Random(1).nextBytes(blockData);
+
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            w.writeUTF("test");
+            w.string("string");
+            w.write(blockData);
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            objOut.writeUTF("test");
+            objOut.writeObject("string");
+            objOut.write(blockData);
+        });
+        int length = expectedData.length;
+
+        for (ByteBuffer target : List.of(ByteBuffer.allocate(length + 20), ByteBuffer.allocateDirect(length + 20))) {
+            target.position(10);
+            assertEquals(length, SerialBuilder.writeSerializationDataWith(target, writer));
+            assertEquals(10 + length, target.position());
+
+            byte[] actualData = new byte[length];
+            target.get(10, actualData);
+            assertArrayEquals(expectedData, actualData);
+        }
+
+        byte[] targetArray = new byte[length + 20];
+        assertEquals(length, SerialBuilder.writeSerializationDataWith(targetArray, 10, writer));
+        assertArrayEquals(expectedData, Arrays.copyOfRange(targetArray, 10, 10 + length));
+
+        ByteBuffer tooSmallTarget = ByteBuffer.allocate(length - 1);
+        assertThrows(BufferOverflowException.class, () -> SerialBuilder.writeSerializationDataWith(tooSmallTarget, writer));
+        assertEquals(0, tooSmallTarget.position());
+
+        ByteBuffer buffer = SerialBuilder.writeSerializationDataToBufferWith(writer);
+        assertEquals(0, buffer.position());
+        assertEquals(length, buffer.limit());
+        assertArrayEquals(expectedData, Arrays.copyOf(buffer.array(), length));
+
+        ByteBuffer directBuffer = SerialBuilder.writeSerializationDataToDirectBufferWith(writer);
+        assertTrue(directBuffer.isDirect());
+        assertEquals(0, directBuffer.position());
+        assertEquals(length, directBuffer.limit());
+        byte[] actualData = new byte[length];
+        directBuffer.get(actualData);
+        assertArrayEquals(expectedData, actualData);
+    }
+
+    @Test
+    void writeSerializationDataToDirectBufferWith_Growing() {
+        int length = 3000;
+        byte[] blockData = new byte[50_000];
+        new Random(1).nextBytes(blockData);
+
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            // Element count is only known at the end and has to be patched after the buffer has grown
+            var elements = w.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements();
+            for (int i = 0; i < length; i++) {
+                elements.string("element " + i);
+            }
+            elements.endElements().endArray();
+            // Write in pieces of different size so that growth happens in the middle of a write
+            for (int offset = 0; offset < blockData.length; offset += 1234) {
+                w.write(blockData, offset, Math.min(1234, blockData.length - offset));
+            }
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            Object[] array = new Object[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = "element " + i;
+            }
+            objOut.writeObject(array);
+            objOut.write(blockData);
+        });
+
+        // Default and too small expected sizes require multiple growth steps; exact size requires none
+        for (int expectedSize : new int[] {-1, 0, 1, 1000, expectedData.length - 1, expectedData.length}) {
+            ByteBuffer buffer = expectedSize == -1
+                ? SerialBuilder.writeSerializationDataToDirectBufferWith(writer)
+                : SerialBuilder.writeSerializationDataToDirectBufferWith(expectedSize, writer);
+            assertTrue(buffer.isDirect());
+            assertEquals(0, buffer.position());
+            assertEquals(expectedData.length, buffer.limit());
+            byte[] actualData = new byte[expectedData.length];
+            buffer.get(actualData);
+            assertArrayEquals(expectedData, actualData, "Expected size: " + expectedSize);
+
+            if (expectedSize == expectedData.length) {
+                assertEquals(expectedData.length, buffer.capacity());
+            }
+        }
+
+        var e = assertThrows(IllegalArgumentException.class, () -> SerialBuilder.writeSerializationDataToDirectBufferWith(-1, writer));
+        assertEquals("Expected size must not be negative: -1", e.getMessage());
+    }
+
+    @Test
+    void writeSerializationDataWith_File(@TempDir Path tempDir) throws IOException {
+        // Large enough that the element count has to be patched after the staging buffer was written to the file
+        int length = 50_000;
+        byte[] blockData = new byte[3000];
+        new Random(1).nextBytes(blockData);
+
+        Path file = tempDir.resolve("data.ser");
+        // Existing content should be overwritten
+        Files.write(file, new byte[200_000]);
+
+        long writtenCount = SerialBuilder.writeSerializationDataWith(file, writer -> {
+            var elements = writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements();
+            for (int i = 0; i < length; i++) {
+                elements.string("element " + i);
+            }
+            elements.endElements().endArray();
+            writer.write(blockData);
+        });
+
+        byte[] expectedData = serializeWith(objOut -> {
+            Object[] array = new Object[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = "element " + i;
+            }
+            objOut.writeObject(array);
+            objOut.write(blockData);
+        });
+        assertEquals(expectedData.length, writtenCount);
+        assertArrayEquals(expectedData, Files.readAllBytes(file));
+    }
+
+    @Test
+    void writeSerializationDataWith_File_Failure(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("data.ser");
+        Files.write(file, new byte[200_000]);
+
+        var e = assertThrows(IllegalStateException.class, () -> SerialBuilder.writeSerializationDataWith(file, writer -> {
+            writer.write(new byte[3000]);
+            writer.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements()
+                .string("element");
+            throw new IllegalStateException("custom failure");
+        }));
+        assertEquals("custom failure", e.getMessage());
+        // Incomplete data must not be left in the file
+        assertEquals(0, Files.size(file));
+    }
+
+    @Test
+    void writeExactSizeSerializationDataWith() {
+        byte[] blockData = new byte[3000];
+        new Random(1).nextBytes(blockData);
+
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            w.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(String[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements()
+                    .string("a")
+                    .string("\u0100".repeat(70_000))
+                .endElements()
+            .endArray();
+            w.writeUTF("test \u0800");
+            w.write(blockData);
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            objOut.writeObject(new String[] {"a", "\u0100".repeat(70_000)});
+            objOut.writeUTF("test \u0800");
+            objOut.write(blockData);
+        });
+        assertEquals(expectedData.length, SerialBuilder.computeSerializationDataSize(writer));
+        assertArrayEquals(expectedData, SerialBuilder.writeExactSizeSerializationDataWith(writer));
+
+        AtomicInteger callCount = new AtomicInteger(0);
+        var e = assertThrows(IllegalStateException.class, () -> SerialBuilder.writeExactSizeSerializationDataWith(w -> {
+            w.writeInt(callCount.incrementAndGet());
+            if (callCount.get() > 1) {
+                w.writeInt(1);
+            }
+        }));
+        assertEquals("Writer wrote more data than during the sizing pass; writer must be deterministic", e.getMessage());
+    }
+
+    @Test
+    void newSerializationDataInputStream() throws IOException {
+        int length = 5000;
+        byte[] blockData = new byte[100_000];
+        new Random(1).nextBytes(blockData);
+
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            var elements = w.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements();
+            for (int i = 0; i < length; i++) {
+                elements.string("element " + i);
+            }
+            elements.endElements().endArray();
+            w.write(blockData);
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            Object[] array = new Object[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = "element " + i;
+            }
+            objOut.writeObject(array);
+            objOut.write(blockData);
+        });
+
+        try (InputStream in = SerialBuilder.newSerializationDataInputStream(writer)) {
+            assertEquals(expectedData[0] & 0xFF, in.read());
+            byte[] actualData = in.readAllBytes();
+            assertArrayEquals(Arrays.copyOfRange(expectedData, 1, expectedData.length), actualData);
+            assertEquals(-1, in.read());
+        }
+
+        // Closing the stream early should not cause any issues
+        InputStream in = SerialBuilder.newSerializationDataInputStream(writer);
+        assertEquals(expectedData[0] & 0xFF, in.read());
+        in.close();
+        assertThrows(IOException.class, in::read);
+
+        IllegalStateException writerException = new IllegalStateException("test");
+        try (InputStream failingIn = SerialBuilder.newSerializationDataInputStream(w -> {
+            w.writeInt(1);
+            throw writerException;
+        })) {
+            var e = assertThrows(IOException.class, failingIn::readAllBytes);
+            assertSame(writerException, e.getCause());
+        }
+    }
+
+    /**
+     * Creates a stream and discards it after reading a single byte, without closing it.
+     */
+    private static void readAndDiscardInputStream(ThrowingConsumer<ObjectBuildingDataOutput> writer) throws IOException {
+        InputStream in = SerialBuilder.newSerializationDataInputStream(writer);
+        assertNotEquals(-1, in.read());
+    }
+
+    @Test
+    void newSerializationDataInputStream_Discarded() throws Exception {
+        CountDownLatch writerEnded = new CountDownLatch(1);
+        readAndDiscardInputStream(w -> {
+            try {
+                // Write more data than the stream buffers, so the writer waits for the reader
+                for (int i = 0; i < 1000; i++) {
+                    w.write(new byte[1000]);
+                }
+            } finally {
+                writerEnded.countDown();
+            }
+        });
+
+        // Writer should be stopped once the stream has been garbage collected
+        for (int i = 0; i < 100 && writerEnded.getCount() > 0; i++) {
+            System.gc();
+            writerEnded.await(100, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(0, writerEnded.getCount());
+    }
+
+    @Test
+    void newSerializationDataPublisher() throws Exception {
+        byte[] blockData = new byte[100_000];
+        new Random(1).nextBytes(blockData);
+
+        Flow.Publisher<ByteBuffer> publisher = SerialBuilder.newSerializationDataPublisher(writer -> {
+            writer.string("test");
+            writer.write(blockData);
+        });
+        byte[] expectedData = serializeWith(objOut -> {
+            objOut.writeObject("test");
+            objOut.write(blockData);
+        });
+
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                out.writeBytes(bytes);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(out.toByteArray());
+            }
+        });
+        assertArrayEquals(expectedData, result.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Subscriber which requests unbounded demand and records the received signals.
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        final AtomicInteger onNextCount = new AtomicInteger(0);
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            onNextCount.incrementAndGet();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(null);
+        }
+    }
+
+    @Test
+    void newSerializationDataPublisher_Executor() throws Exception {
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            for (int i = 0; i < 100; i++) {
+                w.write(new byte[1000]);
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            SerialBuilder.newSerializationDataPublisher(executor, writer).subscribe(subscriber);
+            subscriber.result.get(10, TimeUnit.SECONDS);
+            assertTrue(subscriber.onNextCount.get() > 1);
+        } finally {
+            executor.shutdown();
+        }
+
+        RejectedExecutionException rejectedException = new RejectedExecutionException("test");
+        RecordingSubscriber rejectedSubscriber = new RecordingSubscriber();
+        SerialBuilder.newSerializationDataPublisher(task -> {
+            throw rejectedException;
+        }, writer).subscribe(rejectedSubscriber);
+        var e = assertThrows(ExecutionException.class, () -> rejectedSubscriber.result.get(10, TimeUnit.SECONDS));
+        assertSame(rejectedException, e.getCause());
+        assertEquals(0, rejectedSubscriber.onNextCount.get());
+    }
+
+    @Test
+    void newSerializationDataPublisher_Errors() throws Exception {
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            for (int i = 0; i < 100; i++) {
+                w.write(new byte[1000]);
+            }
+        };
+
+        // Should stop writing and report the invalid request without waiting for demand to be exhausted
+        RecordingSubscriber invalidRequestSubscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(ByteBuffer item) {
+                super.onNext(item);
+                subscription.request(0);
+            }
+        };
+        SerialBuilder.newSerializationDataPublisher(writer).subscribe(invalidRequestSubscriber);
+        var e = assertThrows(ExecutionException.class, () -> invalidRequestSubscriber.result.get(10, TimeUnit.SECONDS));
+        assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+        assertEquals("Non-positive request: 0", e.getCause().getMessage());
+        assertEquals(1, invalidRequestSubscriber.onNextCount.get());
+
+        IllegalStateException subscriberException = new IllegalStateException("test");
+        RecordingSubscriber failingSubscriber = new RecordingSubscriber() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                throw subscriberException;
+            }
+        };
+        // Executor runs the task synchronously, so all signals have been sent once subscribe returns
+        SerialBuilder.newSerializationDataPublisher(Runnable::run, writer).subscribe(failingSubscriber);
+        // Subscriber violated the specification, so no further signals should be sent
+        assertFalse(failingSubscriber.result.isDone());
+        assertEquals(0, failingSubscriber.onNextCount.get());
+
+        RecordingSubscriber failingOnNextSubscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(ByteBuffer item) {
+                super.onNext(item);
+                throw subscriberException;
+            }
+        };
+        SerialBuilder.newSerializationDataPublisher(Runnable::run, writer).subscribe(failingOnNextSubscriber);
+        assertFalse(failingOnNextSubscriber.result.isDone());
+        assertEquals(1, failingOnNextSubscriber.onNextCount.get());
+
+        // Interrupting the writing thread while it waits for demand should report the interruption
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch writingStarted = new CountDownLatch(1);
+        RecordingSubscriber noDemandSubscriber = new RecordingSubscriber() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+            }
+        };
+        SerialBuilder.newSerializationDataPublisher(executor, w -> {
+            writingStarted.countDown();
+            writer.accept(w);
+        }).subscribe(noDemandSubscriber);
+        assertTrue(writingStarted.await(10, TimeUnit.SECONDS));
+        executor.shutdownNow();
+        e = assertThrows(ExecutionException.class, () -> noDemandSubscriber.result.get(10, TimeUnit.SECONDS));
+        assertEquals(UncheckedIOException.class, e.getCause().getClass());
+        assertEquals(InterruptedIOException.class, e.getCause().getCause().getClass());
+        assertEquals(0, noDemandSubscriber.onNextCount.get());
+
+        // CancellationException thrown by the writer must be reported since the subscription was not cancelled
+        CancellationException writerException = new CancellationException("test");
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SerialBuilder.newSerializationDataPublisher(w -> {
+            w.writeInt(1);
+            throw writerException;
+        }).subscribe(subscriber);
+        // Cannot use get() because it rethrows a CancellationException as is
+        assertSame(writerException, subscriber.result.handle((r, t) -> t).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void writePipelinedSerializationDataWith() {
+        byte[] blockData = new byte[1_000_000];
+        new Random(1).nextBytes(blockData);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writePipelinedSerializationDataWith(Channels.newChannel(out), writer -> {
+            writer.string("test");
+            writer.write(blockData);
+        });
+        byte[] expectedData = serializeWith(objOut -> {
+            objOut.writeObject("test");
+            objOut.write(blockData);
+        });
+        assertArrayEquals(expectedData, out.toByteArray());
+
+        IOException channelException = new IOException("test");
+        var e = assertThrows(UncheckedIOException.class, () -> SerialBuilder.writePipelinedSerializationDataWith(Channels.newChannel(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw channelException;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw channelException;
+            }
+        }), writer -> writer.write(blockData)));
+        assertSame(channelException, e.getCause());
+
+        // CancellationException thrown by the writer itself must not be mistaken for cancellation by the I/O thread
+        CancellationException writerException = new CancellationException("test");
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        var e2 = assertThrows(CancellationException.class, () -> SerialBuilder.writePipelinedSerializationDataWith(Channels.newChannel(out2), writer -> {
+            writer.write(blockData);
+            throw writerException;
+        }));
+        assertSame(writerException, e2);
+    }
+
+    @Test
+    void writePipelinedSerializationDataWith_Executor() throws Exception {
+        byte[] blockData = new byte[1_000_000];
+        new Random(1).nextBytes(blockData);
+        byte[] expectedData = serializeWith(objOut -> objOut.write(blockData));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SerialBuilder.writePipelinedSerializationDataWith(executor, Channels.newChannel(out), writer -> writer.write(blockData));
+            assertArrayEquals(expectedData, out.toByteArray());
+
+            // Executor thread should be reusable after writing has finished
+            out.reset();
+            SerialBuilder.writePipelinedSerializationDataWith(executor, Channels.newChannel(out), SerialBuilderOptions.defaults(), writer -> writer.write(blockData));
+            assertArrayEquals(expectedData, out.toByteArray());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        RejectedExecutionException rejectedException = new RejectedExecutionException("test");
+        var e = assertThrows(RejectedExecutionException.class, () -> SerialBuilder.writePipelinedSerializationDataWith(task -> {
+            throw rejectedException;
+        }, Channels.newChannel(new ByteArrayOutputStream()), writer -> fail("should not have been called")));
+        assertSame(rejectedException, e);
+    }
+
+    @Test
+    void writeSerializationDataWith_DataListener(@TempDir Path tempDir) throws Exception {
+        int length = 5000;
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            var elements = w.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(Object[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginObjectElements();
+            for (int i = 0; i < length; i++) {
+                elements.string("element " + i);
+            }
+            elements.endElements().endArray();
+            w.writeInt(1);
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            Object[] array = new Object[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = "element " + i;
+            }
+            objOut.writeObject(array);
+            objOut.writeInt(1);
+        });
+        byte[] expectedHash = MessageDigest.getInstance("SHA-256").digest(expectedData);
+        CRC32C expectedChecksum = new CRC32C();
+        expectedChecksum.update(expectedData);
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        CRC32C checksum = new CRC32C();
+        byte[] actualData = SerialBuilder.writeSerializationDataWith(SerialBuilderOptions.defaults().withDataListener(data -> {
+            digest.update(data.duplicate());
+            checksum.update(data);
+        }), writer);
+        assertArrayEquals(expectedData, actualData);
+        assertArrayEquals(expectedHash, digest.digest());
+        assertEquals(expectedChecksum.getValue(), checksum.getValue());
+
+        SerialBuilderOptions options = SerialBuilderOptions.defaults().withDataListener(digest::update);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writeSerializationDataWith(out, options, writer);
+        assertArrayEquals(expectedData, out.toByteArray());
+        assertArrayEquals(expectedHash, digest.digest());
+
+        // Patchable destinations; the listener must only see the data after the array length has been patched
+        ByteBuffer buffer = ByteBuffer.allocate(expectedData.length);
+        SerialBuilder.writeSerializationDataWith(buffer, options, writer);
+        assertArrayEquals(expectedData, buffer.array());
+        assertArrayEquals(expectedHash, digest.digest());
+
+        Path file = tempDir.resolve("data.ser");
+        SerialBuilder.writeSerializationDataWith(file, options, writer);
+        assertArrayEquals(expectedData, Files.readAllBytes(file));
+        assertArrayEquals(expectedHash, digest.digest());
+
+        assertThrows(NullPointerException.class, () -> SerialBuilderOptions.defaults().withDataListener(null));
+    }
+
+    @Test
+    void writeSerializationDataWith_MaxSize() {
+        byte[] blockData = new byte[3000];
+        new Random(1).nextBytes(blockData);
+
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            w.string("test");
+            w.write(blockData);
+            // Short trailing block data, for which the block data header is shorter than the reserved space
+            w.writeInt(1);
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            objOut.writeObject("test");
+            objOut.write(blockData);
+            objOut.writeInt(1);
+        });
+        assertArrayEquals(expectedData, SerialBuilder.writeSerializationDataWith(SerialBuilderOptions.defaults().withMaxSize(expectedData.length), writer));
+
+        SerialBuilderOptions tooSmallOptions = SerialBuilderOptions.defaults().withMaxSize(expectedData.length - 1);
+        var e = assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataWith(tooSmallOptions, writer));
+        assertEquals("Serialization data exceeds maximum size of " + (expectedData.length - 1) + " bytes", e.getMessage());
+        assertEquals(expectedData.length - 1, e.getMaxSize());
+
+        // Large array should be rejected before any of its elements are written
+        int maxSize = 1000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataWith(out, SerialBuilderOptions.defaults().withMaxSize(maxSize), w -> {
+            w.beginArray()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(int[].class)
+                        .flags(SC_SERIALIZABLE)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .elements(new int[1_000_000])
+            .endArray();
+        }));
+        assertTrue(out.size() <= maxSize, "Written size: " + out.size());
+
+        var e2 = assertThrows(IllegalArgumentException.class, () -> SerialBuilderOptions.defaults().withMaxSize(-1));
+        assertEquals("Max size must not be negative: -1", e2.getMessage());
+    }
+
+    @Test
+    void writeSerializationDataWith_Options(@TempDir Path tempDir) throws Exception {
+        byte[] blockData = new byte[3000];
+        new Random(1).nextBytes(blockData);
+
+        ThrowingConsumer<ObjectBuildingDataOutput> writer = w -> {
+            w.string("test");
+            w.write(blockData);
+        };
+        byte[] expectedData = serializeWith(objOut -> {
+            objOut.writeObject("test");
+            objOut.write(blockData);
+        });
+
+        // Options should apply regardless of the destination
+        SerialBuilderOptions options = SerialBuilderOptions.defaults().withMaxSize(expectedData.length);
+        SerialBuilderOptions tooSmallOptions = SerialBuilderOptions.defaults().withMaxSize(expectedData.length - 1);
+
+        assertArrayEquals(expectedData, SerialBuilder.writeSegmentedSerializationDataWith(options, writer).toByteArray());
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSegmentedSerializationDataWith(tooSmallOptions, writer));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerialBuilder.writeSerializationDataWith(Channels.newChannel(out), options, writer);
+        assertArrayEquals(expectedData, out.toByteArray());
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataWith(Channels.newChannel(new ByteArrayOutputStream()), tooSmallOptions, writer));
+
+        ByteBuffer buffer = ByteBuffer.allocate(expectedData.length);
+        assertEquals(expectedData.length, SerialBuilder.writeSerializationDataWith(buffer, options, writer));
+        assertArrayEquals(expectedData, buffer.array());
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataWith(ByteBuffer.allocate(expectedData.length), tooSmallOptions, writer));
+
+        Path file = tempDir.resolve("data.ser");
+        assertEquals(expectedData.length, SerialBuilder.writeSerializationDataWith(file, options, writer));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataWith(file, tooSmallOptions, writer));
+
+        try (InputStream in = SerialBuilder.newSerializationDataInputStream(options, writer)) {
+            assertArrayEquals(expectedData, in.readAllBytes());
+        }
+        try (InputStream in = SerialBuilder.newSerializationDataInputStream(tooSmallOptions, writer)) {
+            var e = assertThrows(IOException.class, in::readAllBytes);
+            assertInstanceOf(DataSizeLimitExceededException.class, e.getCause());
+        }
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SerialBuilder.newSerializationDataPublisher(options, writer).subscribe(subscriber);
+        subscriber.result.get(10, TimeUnit.SECONDS);
+        RecordingSubscriber failingSubscriber = new RecordingSubscriber();
+        SerialBuilder.newSerializationDataPublisher(tooSmallOptions, writer).subscribe(failingSubscriber);
+        var publisherException = assertThrows(ExecutionException.class, () -> failingSubscriber.result.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(DataSizeLimitExceededException.class, publisherException.getCause());
+
+        ByteArrayOutputStream pipelinedOut = new ByteArrayOutputStream();
+        SerialBuilder.writePipelinedSerializationDataWith(Channels.newChannel(pipelinedOut), options, writer);
+        assertArrayEquals(expectedData, pipelinedOut.toByteArray());
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writePipelinedSerializationDataWith(Channels.newChannel(new ByteArrayOutputStream()), tooSmallOptions, writer));
+
+        assertEquals(expectedData.length, SerialBuilder.computeSerializationDataSize(options, writer));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.computeSerializationDataSize(tooSmallOptions, writer));
+
+        assertArrayEquals(expectedData, SerialBuilder.writeExactSizeSerializationDataWith(options, writer));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeExactSizeSerializationDataWith(tooSmallOptions, writer));
+        // Listener should only be called with the written data, not during the sizing pass
+        CRC32C checksum = new CRC32C();
+        SerialBuilder.writeExactSizeSerializationDataWith(SerialBuilderOptions.defaults().withDataListener(checksum::update), writer);
+        CRC32C expectedChecksum = new CRC32C();
+        expectedChecksum.update(expectedData);
+        assertEquals(expectedChecksum.getValue(), checksum.getValue());
+
+        byte[] array = new byte[expectedData.length + 1];
+        assertEquals(expectedData.length, SerialBuilder.writeSerializationDataWith(array, 1, options, writer));
+        assertArrayEquals(expectedData, Arrays.copyOfRange(array, 1, array.length));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataWith(new byte[expectedData.length], 0, tooSmallOptions, writer));
+
+        assertEquals(ByteBuffer.wrap(expectedData), SerialBuilder.writeSerializationDataToBufferWith(options, writer));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataToBufferWith(tooSmallOptions, writer));
+        assertEquals(ByteBuffer.wrap(expectedData), SerialBuilder.writeSerializationDataToDirectBufferWith(options, writer));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataToDirectBufferWith(tooSmallOptions, writer));
+        assertEquals(ByteBuffer.wrap(expectedData), SerialBuilder.writeSerializationDataToDirectBufferWith(16, options, writer));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataToDirectBufferWith(16, tooSmallOptions, writer));
+
+        // Usage check can be disabled; using the outer writer while an inner one is active is then not detected
+        ThrowingConsumer<ObjectBuildingDataOutput> wrongUsageWriter = outerWriter -> {
+            outerWriter.beginSerializableObject()
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .typeWithUid(ClassWithWriteObject.class)
+                        .flags(SC_SERIALIZABLE | SC_WRITE_METHOD)
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginSlots()
+                    .beginSlot()
+                        .writeObjectWith(innerWriter -> outerWriter.writeInt(1))
+                    .endSlot()
+                .endSlots()
+            .endObject();
+        };
+        SerialBuilder.writeSerializationDataWith(SerialBuilderOptions.defaults().withCheckUsage(false), wrongUsageWriter);
+        var e = assertThrows(IllegalStateException.class, () -> SerialBuilder.writeSerializationDataWith(SerialBuilderOptions.defaults(), wrongUsageWriter));
+        assertEquals("Other output is currently active; make sure you called the method on the correct ObjectBuildingDataOutput variable", e.getMessage());
+    }
+
+    @Test
+    void context() {
+        SerialBuilderContext context = new SerialBuilderContext();
+        for (int i = 0; i < 3; i++) {
+            byte[] actualData = SerialBuilder.startSerializableObject(context)
+                .beginDescriptorHierarchy()
+                    .beginDescriptor()
+                        .type(SimpleSerializableClass.class)
+                        .uid(SimpleSerializableClass.serialVersionUID)
+                        .flags(SC_SERIALIZABLE)
+                        .beginPrimitiveFieldDescriptors()
+                            .intField("i")
+                        .endPrimitiveFieldDescriptors()
+                    .endDescriptor()
+                .endDescriptorHierarchy()
+                .beginSlots()
+                    .beginSlot()
+                        .beginPrimitiveFields()
+                            .intValue(i)
+                        .endPrimitiveFields()
+                    .endSlot()
+                .endSlots()
+            .endObject();
+            assertArrayEquals(serialize(new SimpleSerializableClass(i)), actualData);
+
+            // Data larger than the initial buffer size
+            String s = "\u0100".repeat(10_000 * i);
+            byte[] expectedData = serializeWith(objOut -> {
+                objOut.writeObject(s);
+                objOut.writeInt(1);
+            });
+            assertArrayEquals(expectedData, SerialBuilder.writeSerializationDataWith(context, w -> {
+                w.string(s);
+                w.writeInt(1);
+            }));
+        }
+
+        // Data returned by previous builds must not be affected by reusing the context
+        byte[] previousData = SerialBuilder.writeSerializationDataWith(context, w -> w.writeInt(1));
+        byte[] previousDataCopy = previousData.clone();
+        SerialBuilder.writeSerializationDataWith(context, w -> w.writeInt(2));
+        assertArrayEquals(previousDataCopy, previousData);
+
+        // Writer failure should release the context
+        var writerException = new IllegalArgumentException("custom");
+        var e = assertThrows(IllegalArgumentException.class, () -> SerialBuilder.writeSerializationDataWith(context, w -> {
+            w.writeInt(1);
+            throw writerException;
+        }));
+        assertSame(writerException, e);
+
+        // Context must not be used by nested builds
+        var e2 = assertThrows(IllegalStateException.class, () -> SerialBuilder.writeSerializationDataWith(context, w -> {
+            SerialBuilder.writeSerializationDataWith(context, w2 -> {});
+        }));
+        assertEquals("Context is used by a build which has not been finished; call reset() to discard that build", e2.getMessage());
+
+        // Unfinished build prevents usage until context is reset
+        SerialBuilder.startExternalizableObject(context);
+        e2 = assertThrows(IllegalStateException.class, () -> SerialBuilder.writeSerializationDataWith(context, w -> {}));
+        assertEquals("Context is used by a build which has not been finished; call reset() to discard that build", e2.getMessage());
+        context.reset();
+        assertArrayEquals(serializeWith(objOut -> objOut.writeInt(1)), SerialBuilder.writeSerializationDataWith(context, w -> w.writeInt(1)));
+    }
+
+    @Test
+    void context_Options() {
+        byte[] expectedData = serializeWith(objOut -> objOut.writeInt(1));
+
+        // Data listener should be called by every build using the context
+        CRC32C checksum = new CRC32C();
+        SerialBuilderContext context = new SerialBuilderContext(SerialBuilderOptions.defaults().withDataListener(checksum::update));
+        for (int i = 0; i < 2; i++) {
+            checksum.reset();
+            assertArrayEquals(expectedData, SerialBuilder.writeSerializationDataWith(context, w -> w.writeInt(1)));
+            CRC32C expectedChecksum = new CRC32C();
+            expectedChecksum.update(expectedData);
+            assertEquals(expectedChecksum.getValue(), checksum.getValue());
+        }
+
+        context = new SerialBuilderContext(SerialBuilderOptions.defaults().withMaxSize(expectedData.length));
+        assertArrayEquals(expectedData, SerialBuilder.writeSerializationDataWith(context, w -> w.writeInt(1)));
+        SerialBuilderContext tooSmallContext = new SerialBuilderContext(SerialBuilderOptions.defaults().withMaxSize(expectedData.length - 1));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.writeSerializationDataWith(tooSmallContext, w -> w.writeInt(1)));
+        assertThrows(DataSizeLimitExceededException.class, () -> SerialBuilder.startSerializableObject(tooSmallContext)
+            .beginDescriptorHierarchy()
+                .beginDescriptor()
+                    .type(SimpleSerializableClass.class)
+                    .uid(SimpleSerializableClass.serialVersionUID)
+                    .flags(SC_SERIALIZABLE)
+                    .beginPrimitiveFieldDescriptors()
+                        .intField("i")
+                    .endPrimitiveFieldDescriptors()
+                .endDescriptor()
+            .endDescriptorHierarchy()
+            .beginSlots()
+                .beginSlot()
+                    .beginPrimitiveFields()
+                        .intValue(1)
+                    .endPrimitiveFields()
+                .endSlot()
+            .endSlots()
+        .endObject());
+    }
 }
@@ -0,0 +1,105 @@
+package marcono1234.serialization.serialbuilder;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SerialDataCompressionTest {
+    private static byte[] serialize(Object obj) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objOut = new ObjectOutputStream(out)) {
+            objOut.writeObject(obj);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] compressWithoutDictionary(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressingOut = new DeflaterOutputStream(out)) {
+            compressingOut.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void roundTrip() throws Exception {
+        Map<Integer, List<Long>> map = new HashMap<>();
+        map.put(1, new ArrayList<>(List.of(2L, 3L)));
+        map.put(4, new ArrayList<>(List.of(5L)));
+        byte[] data = serialize(map);
+
+        byte[] compressed = SerialDataCompression.compress(data);
+        assertArrayEquals(data, SerialDataCompression.decompress(compressed));
+        // Dictionary should make compression of small data more effective
+        assertTrue(compressed.length < compressWithoutDictionary(data).length / 2, "Compressed length: " + compressed.length);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressingOut = SerialDataCompression.newCompressingOutputStream(out)) {
+            SerialBuilder.writeSerializationDataWith(compressingOut, writer -> writer.string("test"));
+        }
+        try (ObjectInputStream objIn = new ObjectInputStream(SerialDataCompression.newDecompressingInputStream(new ByteArrayInputStream(out.toByteArray())))) {
+            assertEquals("test", objIn.readObject());
+        }
+    }
+
+    /**
+     * Verifies that the dictionary does not change, because that would make previously compressed data unreadable.
+     */
+    @Test
+    void dictionary() {
+        byte[] compressed = SerialDataCompression.compress(new byte[0]);
+        // ZLIB header: CMF, FLG (with FDICT set), then DICTID, the Adler-32 checksum of the dictionary
+        assertEquals(0x20, compressed[1] & 0x20);
+        long dictionaryAdler = ByteBuffer.wrap(compressed, 2, Integer.BYTES).getInt() & 0xFFFFFFFFL;
+        assertEquals(497998671L, dictionaryAdler);
+    }
+
+    @Test
+    void decompress_Empty() {
+        byte[] compressed = SerialDataCompression.compress(new byte[0]);
+        assertArrayEquals(new byte[0], SerialDataCompression.decompress(compressed));
+    }
+
+    @Test
+    void decompress_UnknownDictionary() throws IOException {
+        Deflater deflater = new Deflater();
+        deflater.setDictionary(new byte[] {1, 2, 3});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressingOut = new DeflaterOutputStream(out, deflater)) {
+            compressingOut.write(serialize("test"));
+        } finally {
+            deflater.end();
+        }
+
+        var e = assertThrows(UncheckedIOException.class, () -> SerialDataCompression.decompress(out.toByteArray()));
+        assertInstanceOf(ZipException.class, e.getCause());
+        assertEquals("Data was compressed with an unknown dictionary", e.getCause().getMessage());
+
+        try (InputStream in = SerialDataCompression.newDecompressingInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThrows(ZipException.class, in::read);
+        }
+    }
+}
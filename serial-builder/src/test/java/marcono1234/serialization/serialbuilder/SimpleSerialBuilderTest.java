@@ -9,6 +9,7 @@ import marcono1234.serialization.serialbuilder.simplebuilder.api.object.serializ
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -20,7 +21,11 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.channels.Channels;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -70,6 +75,46 @@ class SimpleSerialBuilderTest {
         assertEquals("nested-test", actualObject.s);
     }
 
+    private static class ClassWithPrimitiveFields implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public boolean z;
+        public byte b;
+        public char c;
+        public short s;
+        public int i;
+        public long l;
+        public float f;
+        public double d;
+    }
+
+    @Test
+    void serializable_PrimitiveFields() {
+        byte[] actualData = SimpleSerialBuilder.startSerializableObject()
+            .beginClassData(ClassWithPrimitiveFields.class)
+                .primitiveBooleanField("z", true)
+                .primitiveByteField("b", (byte) -2)
+                .primitiveCharField("c", '\uFFFE')
+                .primitiveShortField("s", (short) -3)
+                .primitiveIntField("i", -4)
+                .primitiveLongField("l", Long.MIN_VALUE)
+                .primitiveFloatField("f", -1.5f)
+                .primitiveDoubleField("d", Double.NEGATIVE_INFINITY)
+            .endClassData()
+        .endObject();
+
+        ClassWithPrimitiveFields actualObject = deserialize(actualData);
+        assertTrue(actualObject.z);
+        assertEquals(-2, actualObject.b);
+        assertEquals('\uFFFE', actualObject.c);
+        assertEquals(-3, actualObject.s);
+        assertEquals(-4, actualObject.i);
+        assertEquals(Long.MIN_VALUE, actualObject.l);
+        assertEquals(-1.5f, actualObject.f);
+        assertEquals(Double.NEGATIVE_INFINITY, actualObject.d);
+    }
+
     private static class ClassWithWriteObject implements Serializable {
         @Serial
         private static final long serialVersionUID = 1L;
@@ -1178,4 +1223,281 @@ class SimpleSerialBuilderTest {
             assertSame(actualObject, objIn.readObject());
         });
     }
+
+    @Test
+    void writeSerializationDataWith_OutputStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SimpleSerialBuilder.writeSerializationDataWith(out, writer -> {
+            writer.writeInt(1);
+            writer.beginObjectArray(String[].class)
+                .string("a")
+                .string("b")
+            .endArray();
+            writer.string("test");
+        });
+
+        checkDeserialized(out.toByteArray(), objIn -> {
+            assertEquals(1, objIn.readInt());
+            assertArrayEquals(new String[] {"a", "b"}, (String[]) objIn.readObject());
+            assertEquals("test", objIn.readObject());
+        });
+    }
+
+    @Test
+    void context() throws Exception {
+        SerialBuilderContext context = new SerialBuilderContext();
+        SerialBuilderContext uncheckedContext = new SerialBuilderContext(SerialBuilderOptions.defaults().withCheckUsage(false));
+        for (int i = 0; i < 4; i++) {
+            // Results should not depend on usage checks
+            SerialBuilderContext buildContext = i % 2 == 0 ? context : uncheckedContext;
+
+            byte[] actualData = SimpleSerialBuilder.startSerializableObject(buildContext)
+                .beginClassData(SerializableClass.class)
+                    .primitiveIntField("i", i)
+                    .beginObjectField("array", int[].class)
+                        .array(new int[] {1, 2, 3})
+                    .endField()
+                    .beginObjectField("s", String.class)
+                        .nullObject()
+                    .endField()
+                .endClassData()
+            .endObject();
+
+            SerializableClass actualObject = deserialize(actualData);
+            assertEquals(i, actualObject.i);
+            assertArrayEquals(new int[] {1, 2, 3}, actualObject.array);
+            assertNull(actualObject.s);
+
+            int value = i;
+            actualData = SimpleSerialBuilder.writeSerializationDataWith(buildContext, writer -> {
+                writer.writeInt(value);
+                writer.string("test");
+            });
+            checkDeserialized(actualData, objIn -> {
+                assertEquals(value, objIn.readInt());
+                assertEquals("test", objIn.readObject());
+            });
+        }
+
+        // State of an abandoned build must not affect the next build
+        SimpleSerialBuilder.startSerializableObject(context)
+            .beginClassData(SerializableClass.class)
+                .primitiveIntField("i", 1)
+                .beginObjectField("array", int[].class);
+        context.reset();
+        byte[] actualData = SimpleSerialBuilder.startSerializableObject(context)
+            .beginClassData(SerializableClass.class)
+                .primitiveIntField("i", 2)
+                .beginObjectField("array", int[].class)
+                    .nullObject()
+                .endField()
+                .beginObjectField("s", String.class)
+                    .string("test")
+                .endField()
+            .endClassData()
+        .endObject();
+        SerializableClass actualObject = deserialize(actualData);
+        assertEquals(2, actualObject.i);
+        assertNull(actualObject.array);
+        assertEquals("test", actualObject.s);
+    }
+
+    @Test
+    void objectArray_ElementsCount() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SimpleSerialBuilder.writeSerializationDataWith(out, writer -> {
+            var elements = writer.beginObjectArray(Object[].class, 3);
+            for (int i = 0; i < 2; i++) {
+                var nestedElements = elements.beginObjectArray(String[].class, 1000);
+                for (int j = 0; j < 1000; j++) {
+                    nestedElements = nestedElements.string("element " + i + "-" + j);
+                }
+                elements = nestedElements.endArray();
+            }
+            elements
+                // Array is nested inside deferred object, so its elements cannot be written directly
+                .beginSerializableObject()
+                    .beginClassData(SerializableClass.class)
+                        .beginObjectField("s", String.class)
+                            .string("test")
+                        .endField()
+                        .beginObjectField("array", int[].class)
+                            .array(new int[] {1})
+                        .endField()
+                    .endClassData()
+                .endObject()
+            .endArray();
+        });
+
+        checkDeserialized(out.toByteArray(), objIn -> {
+            Object[] array = (Object[]) objIn.readObject();
+            assertEquals(3, array.length);
+            for (int i = 0; i < 2; i++) {
+                String[] nested = (String[]) array[i];
+                assertEquals(1000, nested.length);
+                assertEquals("element " + i + "-999", nested[999]);
+            }
+            SerializableClass actualObject = (SerializableClass) array[2];
+            assertEquals("test", actualObject.s);
+        });
+
+        var e = assertThrows(IllegalStateException.class, () -> SimpleSerialBuilder.writeSerializationDataWith(writer -> {
+            writer.beginObjectArray(String[].class, 1)
+                .string("a")
+                .string("b")
+            .endArray();
+        }));
+        assertEquals("Array has more elements than the expected 1", e.getMessage());
+
+        e = assertThrows(IllegalStateException.class, () -> SimpleSerialBuilder.startSerializableObject()
+            .beginClassData(SerializableClass.class)
+                .beginObjectField("s", Object[].class)
+                    .beginObjectArray(Object[].class, 2)
+                        .string("a")
+                    .endArray()
+                .endField()
+            .endClassData()
+        .endObject());
+        assertEquals("Array has 1 elements, but expected 2", e.getMessage());
+    }
+
+    @Test
+    void computedPrimitiveArrays() throws Exception {
+        byte[] encodedInts = {0, 0, 0, 1, -1, -1, -1, -1};
+        byte[] actualData = SimpleSerialBuilder.writeSerializationDataWith(writer -> {
+            writer.intArray(3, i -> i * 2);
+            writer.longArray(2, LongStream.of(Long.MIN_VALUE, Long.MAX_VALUE));
+            writer.doubleArray(2, i -> i + 0.5);
+            writer.encodedArray(int.class, 2, Channels.newChannel(new ByteArrayInputStream(encodedInts)));
+        });
+        checkDeserialized(actualData, objIn -> {
+            assertArrayEquals(new int[] {0, 2, 4}, (int[]) objIn.readObject());
+            assertArrayEquals(new long[] {Long.MIN_VALUE, Long.MAX_VALUE}, (long[]) objIn.readObject());
+            assertArrayEquals(new double[] {0.5, 1.5}, (double[]) objIn.readObject());
+            assertArrayEquals(new int[] {1, -1}, (int[]) objIn.readObject());
+        });
+
+        // Elements of deferred array are only computed once the enclosing object is written
+        actualData = SimpleSerialBuilder.startSerializableObject()
+            .beginClassData(SerializableClass.class)
+                .beginObjectField("array", int[].class)
+                    .intArray(2, IntStream.of(3, 4))
+                .endField()
+            .endClassData()
+        .endObject();
+        SerializableClass actualObject = deserialize(actualData);
+        assertArrayEquals(new int[] {3, 4}, actualObject.array);
+
+        var e = assertThrows(IllegalArgumentException.class, () -> SimpleSerialBuilder.writeSerializationDataWith(writer -> {
+            writer.encodedArray(String.class, 1, Channels.newChannel(new ByteArrayInputStream(new byte[0])));
+        }));
+        assertEquals("Not a primitive type: java.lang.String", e.getMessage());
+
+        // Negative length should be rejected directly, even if the array is deferred
+        var objectField = SimpleSerialBuilder.startSerializableObject()
+            .beginClassData(SerializableClass.class)
+                .beginObjectField("array", int[].class);
+        e = assertThrows(IllegalArgumentException.class, () -> objectField.intArray(-1, i -> i));
+        assertEquals("Length must not be negative: -1", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> objectField.intArray(-1, IntStream.empty()));
+        assertEquals("Length must not be negative: -1", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> objectField.encodedArray(int.class, -1, Channels.newChannel(new ByteArrayInputStream(new byte[0]))));
+        assertEquals("Length must not be negative: -1", e.getMessage());
+
+        // Streams are closed once their elements have been written
+        AtomicBoolean isClosed = new AtomicBoolean(false);
+        SimpleSerialBuilder.writeSerializationDataWith(writer -> {
+            writer.intArray(1, IntStream.of(1).onClose(() -> isClosed.set(true)));
+        });
+        assertTrue(isClosed.get());
+    }
+
+    @Test
+    void array_DeferredCopy() {
+        int[] array = {1, 2, 3};
+        var classData = SimpleSerialBuilder.startSerializableObject()
+            .beginClassData(SerializableClass.class)
+                .beginObjectField("array", int[].class)
+                    .array(array)
+                .endField();
+        // Array is written once the object is complete; should not be affected by modification
+        array[0] = 4;
+        SerializableClass actualObject = deserialize(classData.endClassData().endObject());
+        assertArrayEquals(new int[] {1, 2, 3}, actualObject.array);
+
+        // Trusted arrays are not copied
+        SerialBuilderContext context = new SerialBuilderContext(SerialBuilderOptions.defaults().withTrustArrays(true));
+        array[0] = 1;
+        classData = SimpleSerialBuilder.startSerializableObject(context)
+            .beginClassData(SerializableClass.class)
+                .beginObjectField("array", int[].class)
+                    .array(array)
+                .endField();
+        array[0] = 4;
+        actualObject = deserialize(classData.endClassData().endObject());
+        assertArrayEquals(new int[] {4, 2, 3}, actualObject.array);
+    }
+
+    private static class NestedClass implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public Object value;
+    }
+
+    /**
+     * Writes objects nested {@code depth} levels deep, alternating between serializable objects and arrays.
+     */
+    private static <C> C writeNested(ObjectStart<C> start, int depth) {
+        if (depth == 0) {
+            return start.string("end");
+        } else if (depth % 2 == 0) {
+            var elements = start.beginObjectArray(Object[].class, 2)
+                .string("element " + depth);
+            return writeNested(elements, depth - 1).endArray();
+        } else {
+            var field = start.beginSerializableObject()
+                .beginClassData(NestedClass.class)
+                    .beginObjectField("value", Object.class);
+            return writeNested(field, depth - 1)
+                    .endField()
+                .endClassData()
+            .endObject();
+        }
+    }
+
+    @Test
+    void deepNesting() throws Exception {
+        // Nesting is deeper than the initial capacity of the internal nesting stacks
+        int depth = 41;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SimpleSerialBuilder.writeSerializationDataWith(out, writer -> writeNested(writer, depth));
+
+        checkDeserialized(out.toByteArray(), objIn -> {
+            Object current = objIn.readObject();
+            for (int i = depth; i > 0; i--) {
+                if (i % 2 == 0) {
+                    Object[] array = (Object[]) current;
+                    assertEquals("element " + i, array[0]);
+                    current = array[1];
+                } else {
+                    current = ((NestedClass) current).value;
+                }
+            }
+            assertEquals("end", current);
+        });
+
+        // Builder of the context is reused; nesting state must have been fully cleared
+        SerialBuilderContext context = new SerialBuilderContext();
+        for (int i = 0; i < 2; i++) {
+            var field = SimpleSerialBuilder.startSerializableObject(context)
+                .beginClassData(NestedClass.class)
+                    .beginObjectField("value", Object.class);
+            NestedClass actualObject = deserialize(writeNested(field, depth - 1)
+                    .endField()
+                .endClassData()
+            .endObject());
+            assertEquals("element " + (depth - 1), ((Object[]) actualObject.value)[0]);
+        }
+    }
 }